@@ -0,0 +1,78 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.batch;
+
+import org.smallibs.concurrent.batch.impl.BatchLoaderImpl;
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.promise.Promise;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Batch loader builder
+ */
+public enum BatchHelper {
+    ;
+
+    /**
+     * Factory. The batch call is started by the thread closing the window i.e. a loading
+     * thread or the common pool: it should not block.
+     *
+     * @param <K>      The key type
+     * @param <V>      The value type
+     * @param batch    The asynchronous batch call
+     * @param maxSize  The maximum number of distinct keys in a batch
+     * @param maxDelay The maximum duration of a window
+     * @return a new batch loader
+     */
+    public static <K, V> BatchLoader<K, V> create(Function<List<K>, Promise<Map<K, V>>> batch, int maxSize, Duration maxDelay) {
+        return new BatchLoaderImpl<>(batch, maxSize, maxDelay);
+    }
+
+    /**
+     * Factory of a loader whose window is also closed when the current tick ends i.e. once
+     * the task of the tick executor in progress when the window opened is done. With a
+     * single-threaded executor, the loads done by a task are then gathered in one batch.
+     *
+     * @param <K>      The key type
+     * @param <V>      The value type
+     * @param batch    The asynchronous batch call
+     * @param maxSize  The maximum number of distinct keys in a batch
+     * @param maxDelay The maximum duration of a window
+     * @param tick     The executor running the ticks
+     * @return a new batch loader
+     */
+    public static <K, V> BatchLoader<K, V> perTick(Function<List<K>, Promise<Map<K, V>>> batch, int maxSize, Duration maxDelay, java.util.concurrent.Executor tick) {
+        Objects.requireNonNull(tick);
+
+        return new BatchLoaderImpl<>(batch, maxSize, maxDelay, tick);
+    }
+
+    /**
+     * Factory where batch calls are done by an executor
+     *
+     * @param <K>      The key type
+     * @param <V>      The value type
+     * @param executor The executor
+     * @param batch    The synchronous batch call
+     * @param maxSize  The maximum number of distinct keys in a batch
+     * @param maxDelay The maximum duration of a window
+     * @return a new batch loader
+     */
+    public static <K, V> BatchLoader<K, V> create(Executor executor, Function<List<K>, Map<K, V>> batch, int maxSize, Duration maxDelay) {
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(batch);
+
+        return create(keys -> executor.async(() -> batch.apply(keys)), maxSize, maxDelay);
+    }
+}
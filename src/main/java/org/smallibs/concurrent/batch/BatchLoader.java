@@ -0,0 +1,70 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.batch;
+
+import org.smallibs.concurrent.promise.Promise;
+
+import java.time.Duration;
+
+/**
+ * A batch loader gathers the keys loaded within a window into a single batch call.
+ * A window is closed when it contains a maximum number of distinct keys, when its
+ * maximum delay expires or, for a loader bound to a tick executor, when the current
+ * tick ends.
+ */
+public interface BatchLoader<K, V> {
+
+    /**
+     * Batch loader metrics
+     *
+     * @param batches      The number of batches
+     * @param keys         The number of distinct keys loaded by batches
+     * @param deduplicated The number of loads sharing a key already in the window
+     * @param maxBatchSize The largest batch
+     * @param totalWait    The cumulated duration of the windows
+     */
+    record Metrics(long batches, long keys, long deduplicated, long maxBatchSize, Duration totalWait) {
+
+        /**
+         * @return the average number of keys per batch
+         */
+        public double averageBatchSize() {
+            return batches == 0 ? 0 : (double) keys / batches;
+        }
+
+        /**
+         * @return the average duration of a window
+         */
+        public Duration averageWait() {
+            return batches == 0 ? Duration.ZERO : totalWait.dividedBy(batches);
+        }
+    }
+
+    /**
+     * Load method. The key is added to the current window and the promise is solved once
+     * the batch containing it completes. Each load returns its own promise: cancelling it
+     * does not cancel the loads of the other callers. It fails with a NoValueException when the batch
+     * result has no value for the key.
+     *
+     * @param key The key to be loaded
+     * @return a promise of the value
+     */
+    Promise<V> load(K key);
+
+    /**
+     * Closes the current window and starts its batch immediately
+     */
+    void flush();
+
+    /**
+     * @return a snapshot of the metrics
+     */
+    Metrics metrics();
+
+}
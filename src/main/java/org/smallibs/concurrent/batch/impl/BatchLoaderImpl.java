@@ -0,0 +1,323 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.batch.impl;
+
+import org.smallibs.concurrent.batch.BatchLoader;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.concurrent.timer.Timer;
+import org.smallibs.concurrent.timer.TimerHelper;
+import org.smallibs.data.Try;
+import org.smallibs.exception.NoValueException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Batch loader. The current window is published in an atomic reference and replaced once
+ * closed. Loads enter a window by incrementing its writer count; closing a window seals it
+ * and waits for the writers in progress, hence no key is added after its batch started.
+ * Each load gets its own promise so a caller cancelling it does not cancel the others.
+ * <p>
+ * A window may also be closed when the current tick ends: the close is then submitted to
+ * a tick executor when the window opens and runs after the task in progress, for instance
+ * on a single-threaded event loop. Expired windows are closed by the common pool, not by
+ * the timer thread.
+ */
+public final class BatchLoaderImpl<K, V> implements BatchLoader<K, V> {
+
+    private final Function<List<K>, Promise<Map<K, V>>> batch;
+    private final int maxSize;
+    private final Duration maxDelay;
+    private final Timer timer;
+    private final Executor tick;
+    private final AtomicReference<Window> current;
+
+    private final LongAdder batches;
+    private final LongAdder keys;
+    private final LongAdder deduplicated;
+    private final LongAccumulator maxBatchSize;
+    private final LongAdder totalWait;
+
+    public BatchLoaderImpl(Function<List<K>, Promise<Map<K, V>>> batch, int maxSize, Duration maxDelay) {
+        this(batch, maxSize, maxDelay, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param batch    The asynchronous batch call
+     * @param maxSize  The maximum number of distinct keys in a batch
+     * @param maxDelay The maximum duration of a window
+     * @param tick     The executor closing a window once its current task ends, or null
+     */
+    public BatchLoaderImpl(Function<List<K>, Promise<Map<K, V>>> batch, int maxSize, Duration maxDelay, Executor tick) {
+        Objects.requireNonNull(batch);
+        Objects.requireNonNull(maxDelay);
+
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("max size must be positive");
+        }
+
+        this.batch = batch;
+        this.maxSize = maxSize;
+        this.maxDelay = maxDelay;
+        this.timer = TimerHelper.shared();
+        this.tick = tick;
+        this.current = new AtomicReference<>(null);
+
+        this.batches = new LongAdder();
+        this.keys = new LongAdder();
+        this.deduplicated = new LongAdder();
+        this.maxBatchSize = new LongAccumulator(Math::max, 0);
+        this.totalWait = new LongAdder();
+    }
+
+    @Override
+    public Promise<V> load(K key) {
+        Objects.requireNonNull(key);
+
+        for (; ; ) {
+            final Window window = currentWindow();
+            final Promise<V> promise = window.add(key);
+
+            if (promise != null) {
+                if (window.size.get() >= this.maxSize) {
+                    close(window);
+                }
+
+                return view(promise);
+            }
+
+            // Closed or full: help replacing it
+            this.current.compareAndSet(window, null);
+        }
+    }
+
+    @Override
+    public void flush() {
+        final Window window = this.current.get();
+
+        if (window != null) {
+            close(window);
+        }
+    }
+
+    @Override
+    public Metrics metrics() {
+        return new Metrics(
+                batches.sum(),
+                keys.sum(),
+                deduplicated.sum(),
+                maxBatchSize.get(),
+                Duration.ofNanos(totalWait.sum())
+        );
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private Window currentWindow() {
+        for (; ; ) {
+            final Window window = this.current.get();
+
+            if (window != null) {
+                return window;
+            }
+
+            final Window created = new Window();
+
+            if (this.current.compareAndSet(null, created)) {
+                created.timeout = this.timer.schedule(() -> close(created), this.maxDelay, ForkJoinPool.commonPool());
+
+                if (this.tick != null) {
+                    this.tick.execute(() -> close(created));
+                }
+
+                return created;
+            }
+        }
+    }
+
+    private void close(Window window) {
+        if (!window.seal()) {
+            return;
+        }
+
+        this.current.compareAndSet(window, null);
+
+        final Timer.Timeout timeout = window.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+
+        final List<K> batchKeys = new ArrayList<>(window.promises.keySet());
+
+        if (batchKeys.isEmpty()) {
+            return;
+        }
+
+        this.batches.increment();
+        this.keys.add(batchKeys.size());
+        this.maxBatchSize.accumulate(batchKeys.size());
+        this.totalWait.add(System.nanoTime() - window.opened);
+
+        final Promise<Map<K, V>> result;
+
+        try {
+            result = this.batch.apply(batchKeys);
+        } catch (Throwable throwable) {
+            window.complete(Try.failure(throwable));
+            return;
+        }
+
+        result.onComplete(window::complete);
+    }
+
+    /**
+     * @return the promise of a caller, solved by the shared one without depending on it
+     */
+    private static <V> Promise<V> view(Promise<V> shared) {
+        final SolvablePromise<V> promise = new SolvablePromise<>();
+        shared.onComplete(promise::solve);
+        return promise;
+    }
+
+    //
+    // Internal classes
+    //
+
+    private final class Window {
+        private static final int SEALED = 1 << 31;
+
+        private final ConcurrentHashMap<K, SolvablePromise<V>> promises;
+        private final AtomicInteger size;
+        private final AtomicInteger state;
+        private final long opened;
+        private volatile Timer.Timeout timeout;
+
+        private Window() {
+            this.promises = new ConcurrentHashMap<>();
+            this.size = new AtomicInteger(0);
+            this.state = new AtomicInteger(0);
+            this.opened = System.nanoTime();
+            this.timeout = null;
+        }
+
+        /**
+         * @return the promise of the key or null if the window is closed or full
+         */
+        private Promise<V> add(K key) {
+            for (; ; ) {
+                final int writers = this.state.get();
+
+                if ((writers & SEALED) != 0) {
+                    return null;
+                }
+
+                if (this.state.compareAndSet(writers, writers + 1)) {
+                    break;
+                }
+            }
+
+            try {
+                final SolvablePromise<V> existing = this.promises.get(key);
+
+                if (existing != null) {
+                    deduplicated.increment();
+                    return existing;
+                }
+
+                if (this.size.incrementAndGet() > maxSize) {
+                    this.size.decrementAndGet();
+                    return null;
+                }
+
+                final SolvablePromise<V> promise = new SolvablePromise<>();
+                final SolvablePromise<V> concurrent = this.promises.putIfAbsent(key, promise);
+
+                if (concurrent != null) {
+                    this.size.decrementAndGet();
+                    deduplicated.increment();
+                    return concurrent;
+                }
+
+                return promise;
+            } finally {
+                this.state.decrementAndGet();
+            }
+        }
+
+        /**
+         * Seals the window and waits for the writers in progress
+         *
+         * @return true if sealed by the current thread, false otherwise
+         */
+        private boolean seal() {
+            for (; ; ) {
+                final int writers = this.state.get();
+
+                if ((writers & SEALED) != 0) {
+                    return false;
+                }
+
+                if (this.state.compareAndSet(writers, writers | SEALED)) {
+                    break;
+                }
+            }
+
+            while ((this.state.get() & ~SEALED) != 0) {
+                Thread.onSpinWait();
+            }
+
+            return true;
+        }
+
+        private void complete(Try<Map<K, V>> response) {
+            RuntimeException failure = null;
+
+            for (final Map.Entry<K, SolvablePromise<V>> entry : this.promises.entrySet()) {
+                try {
+                    entry.getValue().solve(response.flatmap(values -> valueOf(values, entry.getKey())));
+                } catch (RuntimeException e) {
+                    // A failing callback must not prevent the other promises to be solved
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private Try<V> valueOf(Map<K, V> values, K key) {
+            if (values != null && values.containsKey(key)) {
+                return Try.success(values.get(key));
+            }
+
+            return Try.failure(new NoValueException());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.cache;
+
+import org.smallibs.concurrent.promise.Promise;
+
+import java.time.Duration;
+
+/**
+ * An asynchronous loading cache. Values are promises: concurrent misses for the same key
+ * share a single load, failed loads are evicted and values expire after a time to live.
+ */
+public interface AsyncCache<K, V> {
+
+    /**
+     * Cache statistics
+     *
+     * @param hits          The number of gets served by the cache
+     * @param misses        The number of gets starting a load
+     * @param loadSuccesses The number of successful loads, refreshes included
+     * @param loadFailures  The number of failed loads, refreshes included
+     * @param evictions     The number of entries evicted due to the size bound
+     * @param totalLoadTime The cumulated duration of the completed loads
+     */
+    record Stats(long hits, long misses, long loadSuccesses, long loadFailures, long evictions, Duration totalLoadTime) {
+
+        /**
+         * @return the ratio of gets served by the cache
+         */
+        public double hitRate() {
+            final long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+
+        /**
+         * @return the average duration of a load
+         */
+        public Duration averageLoadTime() {
+            final long loads = loadSuccesses + loadFailures;
+            return loads == 0 ? Duration.ZERO : totalLoadTime.dividedBy(loads);
+        }
+    }
+
+    /**
+     * Get method. On a miss the value is loaded and the load is shared by the concurrent
+     * gets of the same key. Each get returns its own promise: cancelling it does not cancel
+     * the load.
+     *
+     * @param key The key
+     * @return a promise of the value
+     */
+    Promise<V> get(K key);
+
+    /**
+     * Removes a key from the cache
+     *
+     * @param key The key
+     */
+    void invalidate(K key);
+
+    /**
+     * @return the approximate number of entries
+     */
+    long size();
+
+    /**
+     * @return a snapshot of the statistics
+     */
+    Stats stats();
+
+}
@@ -0,0 +1,65 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.cache;
+
+import org.smallibs.concurrent.cache.impl.AsyncCacheImpl;
+import org.smallibs.concurrent.promise.Promise;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Asynchronous cache builder
+ */
+public enum CacheHelper {
+    ;
+
+    /**
+     * Factory for a cache without expiration
+     *
+     * @param <K>         The key type
+     * @param <V>         The value type
+     * @param loader      The asynchronous loader
+     * @param maximumSize The maximum number of entries
+     * @return a new cache
+     */
+    public static <K, V> AsyncCache<K, V> create(Function<? super K, Promise<V>> loader, long maximumSize) {
+        return new AsyncCacheImpl<>(loader, maximumSize, null, null);
+    }
+
+    /**
+     * Factory
+     *
+     * @param <K>         The key type
+     * @param <V>         The value type
+     * @param loader      The asynchronous loader
+     * @param maximumSize The maximum number of entries
+     * @param timeToLive  The duration after which a loaded value expires
+     * @return a new cache
+     */
+    public static <K, V> AsyncCache<K, V> create(Function<? super K, Promise<V>> loader, long maximumSize, Duration timeToLive) {
+        return new AsyncCacheImpl<>(loader, maximumSize, timeToLive, null);
+    }
+
+    /**
+     * Factory with refresh-ahead. A get done after the refresh delay returns the current value
+     * and reloads it in the background; the current value is kept when the reload fails.
+     *
+     * @param <K>          The key type
+     * @param <V>          The value type
+     * @param loader       The asynchronous loader
+     * @param maximumSize  The maximum number of entries
+     * @param timeToLive   The duration after which a loaded value expires
+     * @param refreshAfter The duration after which a loaded value is reloaded
+     * @return a new cache
+     */
+    public static <K, V> AsyncCache<K, V> create(Function<? super K, Promise<V>> loader, long maximumSize, Duration timeToLive, Duration refreshAfter) {
+        return new AsyncCacheImpl<>(loader, maximumSize, timeToLive, refreshAfter);
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.cache.impl;
+
+import org.smallibs.concurrent.cache.AsyncCache;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.concurrent.promise.impl.SolvedPromise;
+import org.smallibs.data.Try;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Asynchronous loading cache. A miss publishes a pending entry with putIfAbsent and only
+ * the publishing thread starts the load, so concurrent misses share it. Each caller waiting
+ * for a load gets its own promise whose cancellation does not cancel the shared load. Entries are kept in
+ * insertion order; when the cache is full the new entry is only admitted if its key is
+ * accessed more frequently than the one of the oldest entry which is then evicted (TinyLFU
+ * admission). Maintenance is done by one thread at a time, the other ones never wait for it.
+ */
+public final class AsyncCacheImpl<K, V> implements AsyncCache<K, V> {
+
+    private static final long LOADING = -1L;
+
+    private final Function<? super K, Promise<V>> loader;
+    private final long maximumSize;
+    private final long timeToLive;
+    private final long refreshAfter;
+
+    private final ConcurrentHashMap<K, Entry<K, V>> entries;
+    private final Queue<Entry<K, V>> insertionOrder;
+    private final AtomicInteger queued;
+    private final FrequencySketch sketch;
+    private final AtomicBoolean maintaining;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder loadSuccesses;
+    private final LongAdder loadFailures;
+    private final LongAdder evictions;
+    private final LongAdder totalLoadTime;
+
+    public AsyncCacheImpl(Function<? super K, Promise<V>> loader, long maximumSize, Duration timeToLive, Duration refreshAfter) {
+        Objects.requireNonNull(loader);
+
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximum size must be positive");
+        }
+
+        this.loader = loader;
+        this.maximumSize = maximumSize;
+        this.timeToLive = timeToLive == null ? Long.MAX_VALUE : timeToLive.toNanos();
+        this.refreshAfter = refreshAfter == null ? Long.MAX_VALUE : refreshAfter.toNanos();
+
+        this.entries = new ConcurrentHashMap<>();
+        this.insertionOrder = new ConcurrentLinkedQueue<>();
+        this.queued = new AtomicInteger(0);
+        this.sketch = new FrequencySketch(maximumSize);
+        this.maintaining = new AtomicBoolean(false);
+
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.loadSuccesses = new LongAdder();
+        this.loadFailures = new LongAdder();
+        this.evictions = new LongAdder();
+        this.totalLoadTime = new LongAdder();
+    }
+
+    @Override
+    public Promise<V> get(K key) {
+        Objects.requireNonNull(key);
+
+        this.sketch.increment(key);
+
+        for (; ; ) {
+            final Entry<K, V> entry = this.entries.get(key);
+
+            if (entry != null) {
+                final long age = entry.age();
+
+                if (age < this.timeToLive) {
+                    final Promise<V> promise = entry.promise;
+                    this.hits.increment();
+
+                    if (age >= this.refreshAfter && entry.refreshing.compareAndSet(false, true)) {
+                        refresh(entry);
+                    }
+
+                    return view(promise);
+                }
+
+                // Expired: replaced by a new load
+                this.entries.remove(key, entry);
+                continue;
+            }
+
+            final Entry<K, V> created = new Entry<>(key);
+
+            if (this.entries.putIfAbsent(key, created) == null) {
+                this.misses.increment();
+                this.insertionOrder.add(created);
+                this.queued.incrementAndGet();
+
+                final Promise<V> promise = created.promise;
+
+                load(created);
+                maintain(created);
+
+                return view(promise);
+            }
+        }
+    }
+
+    @Override
+    public void invalidate(K key) {
+        Objects.requireNonNull(key);
+
+        this.entries.remove(key);
+    }
+
+    @Override
+    public long size() {
+        return this.entries.size();
+    }
+
+    @Override
+    public Stats stats() {
+        return new Stats(
+                hits.sum(),
+                misses.sum(),
+                loadSuccesses.sum(),
+                loadFailures.sum(),
+                evictions.sum(),
+                Duration.ofNanos(totalLoadTime.sum())
+        );
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void load(Entry<K, V> entry) {
+        final SolvablePromise<V> promise = (SolvablePromise<V>) entry.promise;
+        final long start = System.nanoTime();
+
+        // The shared promise is only solved by the loader: callers cannot cancel it
+        promise.onComplete(response -> {
+            if (response instanceof Try.Success<V>) {
+                // Hits are then served by an immutable promise
+                entry.promise = SolvedPromise.of(response);
+                entry.loadedAt = System.nanoTime();
+            } else {
+                // Failed loads are not cached
+                this.entries.remove(entry.key, entry);
+            }
+        });
+
+        callLoader(entry.key).onComplete(response -> {
+            this.totalLoadTime.add(System.nanoTime() - start);
+
+            if (response instanceof Try.Success<V>) {
+                this.loadSuccesses.increment();
+            } else {
+                this.loadFailures.increment();
+            }
+
+            promise.solve(response);
+        });
+    }
+
+    private void refresh(Entry<K, V> entry) {
+        final long start = System.nanoTime();
+
+        callLoader(entry.key).onComplete(response -> {
+            final long end = System.nanoTime();
+            this.totalLoadTime.add(end - start);
+
+            if (response instanceof Try.Success<V> success) {
+                this.loadSuccesses.increment();
+                entry.promise = SolvedPromise.of(success);
+                entry.loadedAt = end;
+            } else {
+                // The current value is kept until its expiration
+                this.loadFailures.increment();
+            }
+
+            entry.refreshing.set(false);
+        });
+    }
+
+    /**
+     * @return the promise of a caller, solved by the shared one without depending on it
+     */
+    private static <V> Promise<V> view(Promise<V> shared) {
+        if (shared instanceof SolvedPromise<V>) {
+            return shared;
+        }
+
+        final SolvablePromise<V> promise = new SolvablePromise<>();
+        shared.onComplete(promise::solve);
+        return promise;
+    }
+
+    private Promise<V> callLoader(K key) {
+        try {
+            return Objects.requireNonNull(this.loader.apply(key));
+        } catch (Throwable throwable) {
+            return SolvedPromise.failure(throwable);
+        }
+    }
+
+    private void maintain(Entry<K, V> candidate) {
+        while (this.maintaining.compareAndSet(false, true)) {
+            try {
+                evict(candidate);
+            } finally {
+                this.maintaining.set(false);
+            }
+
+            // Insertions done during the maintenance may have been missed
+            if (this.entries.size() <= this.maximumSize && this.queued.get() <= 2 * this.maximumSize) {
+                return;
+            }
+
+            candidate = null;
+        }
+    }
+
+    private void evict(Entry<K, V> candidate) {
+        // Stale entries (invalidated, failed, rejected or expired) are purged when they accumulate
+        if (this.queued.get() > 2 * this.maximumSize) {
+            this.insertionOrder.removeIf(entry -> {
+                if (isStale(entry)) {
+                    this.queued.decrementAndGet();
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        while (this.entries.size() > this.maximumSize) {
+            final Entry<K, V> victim = this.insertionOrder.peek();
+
+            if (victim == null) {
+                return;
+            }
+
+            if (isStale(victim)) {
+                dequeue();
+                continue;
+            }
+
+            if (candidate != null && candidate != victim && !isStale(candidate)
+                    && this.sketch.frequency(candidate.key) <= this.sketch.frequency(victim.key)) {
+                // The new entry is not admitted: its load is not cached
+                remove(candidate);
+                candidate = null;
+            } else {
+                dequeue();
+                remove(victim);
+            }
+        }
+    }
+
+    private void dequeue() {
+        // Only the maintaining thread removes entries from the head
+        this.insertionOrder.poll();
+        this.queued.decrementAndGet();
+    }
+
+    private void remove(Entry<K, V> entry) {
+        if (this.entries.remove(entry.key, entry)) {
+            this.evictions.increment();
+        }
+    }
+
+    private boolean isStale(Entry<K, V> entry) {
+        if (entry.age() >= this.timeToLive) {
+            this.entries.remove(entry.key, entry);
+            return true;
+        }
+
+        return this.entries.get(entry.key) != entry;
+    }
+
+    //
+    // Internal classes
+    //
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private final AtomicBoolean refreshing;
+        private volatile Promise<V> promise;
+        private volatile long loadedAt;
+
+        private Entry(K key) {
+            this.key = key;
+            this.refreshing = new AtomicBoolean(false);
+            this.promise = new SolvablePromise<>();
+            this.loadedAt = LOADING;
+        }
+
+        /**
+         * @return the age of the loaded value, zero while loading
+         */
+        private long age() {
+            final long loaded = this.loadedAt;
+            return loaded == LOADING ? 0L : System.nanoTime() - loaded;
+        }
+    }
+}
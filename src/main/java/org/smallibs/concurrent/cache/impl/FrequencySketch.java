@@ -0,0 +1,103 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.cache.impl;
+
+/**
+ * Approximate access frequency (TinyLFU). A count-min sketch of 4-bit counters, four per
+ * key, whose counters are halved once the number of increments reaches ten times the table
+ * capacity so that old accesses fade away. Updates are not atomic: a lost increment only
+ * makes the estimation a bit less accurate, and since each update is computed from a single
+ * read of its word a saturated counter cannot overflow into its neighbour.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_TABLE_SIZE = 1 << 24;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long maximumSize) {
+        final int size = Integer.highestOneBit((int) Math.max(16, Math.min(maximumSize, MAX_TABLE_SIZE)) * 2 - 1);
+
+        this.table = new long[size];
+        this.mask = size - 1;
+        this.sampleSize = 10 * size;
+        this.additions = 0;
+    }
+
+    int frequency(Object element) {
+        final int hash = spread(element.hashCode());
+        int frequency = 15;
+
+        for (int i = 0; i < 4; i++) {
+            frequency = Math.min(frequency, counter(hash, i));
+        }
+
+        return frequency;
+    }
+
+    void increment(Object element) {
+        final int hash = spread(element.hashCode());
+        boolean added = false;
+
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(hash, i);
+            final int offset = offsetOf(hash, i);
+
+            // Checked and written from a single read: a counter never carries into its neighbour
+            final long value = this.table[index];
+
+            if (((value >>> offset) & 0xFL) < 15) {
+                this.table[index] = value + (1L << offset);
+                added = true;
+            }
+        }
+
+        if (added && ++this.additions >= this.sampleSize) {
+            reset();
+        }
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private int counter(int hash, int i) {
+        return (int) ((this.table[indexOf(hash, i)] >>> offsetOf(hash, i)) & 0xFL);
+    }
+
+    private void reset() {
+        for (int i = 0; i < this.table.length; i++) {
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+
+        this.additions = this.additions / 2;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & this.mask;
+    }
+
+    private static int offsetOf(int hash, int i) {
+        // Sixteen 4-bit counters per long, one selected per row
+        return (((hash >>> (i << 3)) & 0xF) << 2);
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.cancellation;
+
+import org.smallibs.concurrent.cancellation.impl.CancellationSourceImpl;
+
+/**
+ * Cancellation source builder
+ */
+public enum CancellationHelper {
+    ;
+
+    /**
+     * Factory
+     *
+     * @return a new cancellation source
+     */
+    public static CancellationSource create() {
+        return new CancellationSourceImpl();
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.cancellation;
+
+import java.time.Duration;
+
+/**
+ * A cancellation source cancels a group of operations sharing its token.
+ */
+public interface CancellationSource {
+
+    /**
+     * @return the token given to the operations to be cancelled
+     */
+    CancellationToken token();
+
+    /**
+     * Cancels the source. Registered actions are activated once.
+     *
+     * @return true if the source has been cancelled, false if it was already cancelled
+     */
+    boolean cancel();
+
+    /**
+     * Cancels the source after a given delay using the shared timer. The cancellation is
+     * done by the common pool, not by the timer thread.
+     *
+     * @param delay The delay before the cancellation
+     * @return the current source
+     */
+    CancellationSource cancelAfter(Duration delay);
+
+}
@@ -0,0 +1,44 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.cancellation;
+
+/**
+ * A cancellation token is the read side of a cancellation source. It is given to the
+ * operations which must stop when the source is cancelled.
+ */
+public interface CancellationToken {
+
+    /**
+     * A registered cancellation action
+     */
+    @FunctionalInterface
+    interface Registration {
+
+        /**
+         * Removes the action. It is a no-op when the action has already been activated.
+         */
+        void unregister();
+
+    }
+
+    /**
+     * @return true if the source has been cancelled, false otherwise
+     */
+    boolean isCancelled();
+
+    /**
+     * Registers an action activated once when the source is cancelled. If the source is
+     * already cancelled the action is immediately activated.
+     *
+     * @param action The action to be activated
+     * @return a registration to be removed when the action is no longer required
+     */
+    Registration onCancel(Runnable action);
+
+}
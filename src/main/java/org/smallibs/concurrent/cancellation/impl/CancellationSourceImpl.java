@@ -0,0 +1,124 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.cancellation.impl;
+
+import org.smallibs.concurrent.cancellation.CancellationSource;
+import org.smallibs.concurrent.cancellation.CancellationToken;
+import org.smallibs.concurrent.timer.TimerHelper;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cancellation source and its token. Registrations are kept in a concurrent set so an
+ * operation completed before the cancellation removes its action in constant time. An
+ * action is activated by the thread removing it from the set, hence exactly once.
+ */
+public final class CancellationSourceImpl implements CancellationSource, CancellationToken {
+
+    private final AtomicBoolean cancelled;
+    private final Set<Action> actions;
+
+    public CancellationSourceImpl() {
+        this.cancelled = new AtomicBoolean(false);
+        this.actions = ConcurrentHashMap.newKeySet();
+    }
+
+    @Override
+    public CancellationToken token() {
+        return this;
+    }
+
+    @Override
+    public boolean cancel() {
+        if (!this.cancelled.compareAndSet(false, true)) {
+            return false;
+        }
+
+        RuntimeException failure = null;
+
+        for (final Action action : this.actions) {
+            try {
+                action.activate();
+            } catch (RuntimeException e) {
+                // A failing action must not prevent the activation of the other ones
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        return true;
+    }
+
+    @Override
+    public CancellationSource cancelAfter(Duration delay) {
+        Objects.requireNonNull(delay);
+
+        // Actions and the continuations of the cancelled promises run off the timer thread
+        final var timeout = TimerHelper.shared().schedule(this::cancel, delay, ForkJoinPool.commonPool());
+        onCancel(timeout::cancel);
+
+        return this;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.cancelled.get();
+    }
+
+    @Override
+    public Registration onCancel(Runnable runnable) {
+        Objects.requireNonNull(runnable);
+
+        final Action action = new Action(runnable);
+
+        this.actions.add(action);
+
+        // Cancelled concurrently: the action may have been missed by the cancelling thread
+        if (this.cancelled.get()) {
+            action.activate();
+        }
+
+        return action;
+    }
+
+    //
+    // Internal classes
+    //
+
+    private final class Action implements Registration {
+        private final Runnable runnable;
+
+        private Action(Runnable runnable) {
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void unregister() {
+            actions.remove(this);
+        }
+
+        private void activate() {
+            if (actions.remove(this)) {
+                runnable.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution;
+
+/**
+ * A group of single-threaded event loops. Tasks started on a loop return promises
+ * confined to this loop: registering callbacks and completing them from the loop
+ * requires no synchronization. A task started from a loop of the group stays on this
+ * loop, other ones are spread on the loops.
+ */
+public interface EventLoopGroup extends Executor, AutoCloseable {
+
+    /**
+     * @param key The key, for instance a connection
+     * @return the loop always selected for this key
+     */
+    Executor loop(Object key);
+
+    /**
+     * @return the number of loops
+     */
+    int size();
+
+    /**
+     * Stops the loops once the queued tasks are done. Tasks started later fail with a
+     * RejectedExecutionException.
+     */
+    @Override
+    void close();
+
+}
@@ -8,10 +8,15 @@
 
 package org.smallibs.concurrent.execution;
 
+import org.smallibs.concurrent.cancellation.CancellationToken;
 import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.PromiseHelper;
+import org.smallibs.concurrent.promise.RetryPolicy;
 import org.smallibs.data.Unit;
 
+import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 
 public interface Executor {
 
@@ -37,4 +42,82 @@ public interface Executor {
      */
     Promise<Unit> async(RunnableWithError task);
 
+    /**
+     * Tells if the current thread runs a task of this executor. In this case a continuation
+     * bound to this executor can be run inline instead of being submitted again. A virtual
+     * thread is only seen as running a task when the task runs an async stage or delivers
+     * its response to continuations.
+     *
+     * @return true if the current thread belongs to this executor, false by default
+     */
+    default boolean isCurrent() {
+        return false;
+    }
+
+    /**
+     * Opens a structured concurrency scope whose children are started by this executor
+     *
+     * @return a new scope
+     */
+    default Scope scope() {
+        return ExecutorHelper.scope(this);
+    }
+
+    /**
+     * Async method retrying the task while it fails with a retryable failure. Waits between
+     * attempts are scheduled on the shared timer and do not hold any thread.
+     *
+     * @param <T>    the promised value type
+     * @param task   the task to be asynchronously executed
+     * @param policy the retry policy
+     * @return a promise
+     */
+    default <T> Promise<T> retry(Callable<T> task, RetryPolicy policy) {
+        Objects.requireNonNull(task);
+
+        return PromiseHelper.retry(() -> async(task), policy);
+    }
+
+    /**
+     * Async method bound to a cancellation token. When the token is cancelled a queued task
+     * is dropped before being started, a running one is interrupted and the promise fails
+     * with a CancellationException.
+     *
+     * @param <T>   the promised value type
+     * @param task  the task to be asynchronously executed
+     * @param token the cancellation token
+     * @return a promise
+     */
+    default <T> Promise<T> async(Callable<T> task, CancellationToken token) {
+        Objects.requireNonNull(task);
+        Objects.requireNonNull(token);
+
+        if (token.isCancelled()) {
+            return PromiseHelper.failure(new CancellationException());
+        }
+
+        final Promise<T> promise = async(task);
+        final CancellationToken.Registration registration = token.onCancel(promise::cancel);
+
+        return promise.onComplete(__ -> registration.unregister());
+    }
+
+    /**
+     * Async method bound to a cancellation token. When the token is cancelled a queued task
+     * is dropped before being started, a running one is interrupted and the promise fails
+     * with a CancellationException.
+     *
+     * @param task  the task to be asynchronously executed
+     * @param token the cancellation token
+     * @return a promise
+     */
+    default Promise<Unit> async(RunnableWithError task, CancellationToken token) {
+        Objects.requireNonNull(task);
+
+        return async(() -> {
+            task.run();
+            return Unit.unit;
+        }, token);
+    }
+
 }
@@ -8,12 +8,20 @@
 
 package org.smallibs.concurrent.execution;
 
+import org.smallibs.concurrent.execution.impl.BoundedExecutor;
+import org.smallibs.concurrent.execution.impl.EventLoopGroupImpl;
 import org.smallibs.concurrent.execution.impl.ExecutorImpl;
+import org.smallibs.concurrent.execution.impl.ForkJoinExecutor;
+import org.smallibs.concurrent.execution.impl.KeyedExecutorImpl;
+import org.smallibs.concurrent.execution.impl.RateLimitedExecutorImpl;
+import org.smallibs.concurrent.execution.impl.ScopeImpl;
 import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.timer.TimerHelper;
 import org.smallibs.data.Try;
 
 import java.time.Duration;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Asynchronous execution builder
@@ -31,6 +39,88 @@ public enum ExecutorHelper {
         return new ExecutorImpl(executorService);
     }
 
+    /**
+     * Factory of a work-stealing executor. Tasks started from a worker of the pool are
+     * pushed onto its local deque.
+     *
+     * @param pool The underlying fork join pool
+     * @return a new executor
+     */
+    public static Executor forkJoin(ForkJoinPool pool) {
+        return new ForkJoinExecutor(pool);
+    }
+
+    /**
+     * Factory of a keyed serial executor. Tasks of a key run in submission order, tasks of
+     * different keys run in parallel on the executor service.
+     *
+     * @param executorService The underlying executor service
+     * @param <K>             The key type
+     * @return a new keyed executor
+     */
+    public static <K> KeyedExecutor<K> keyed(ExecutorService executorService) {
+        return new KeyedExecutorImpl<>(executorService);
+    }
+
+    /**
+     * Factory of a group of single-threaded event loops returning loop-confined promises
+     *
+     * @param size The number of loops
+     * @return a new group of event loops
+     */
+    public static EventLoopGroup eventLoops(int size) {
+        return new EventLoopGroupImpl(size);
+    }
+
+    /**
+     * Factory of an admission-controlled executor. Over the limit a task is rejected and
+     * its promise fails with a shared RejectedException.
+     *
+     * @param executorService The underlying executor service
+     * @param maxTasks        The maximum number of queued and running tasks
+     * @return a new executor
+     */
+    public static Executor bounded(ExecutorService executorService, int maxTasks) {
+        return bounded(executorService, maxTasks, false);
+    }
+
+    /**
+     * Factory of an admission-controlled executor.
+     *
+     * @param executorService    The underlying executor service
+     * @param maxTasks           The maximum number of queued and running tasks
+     * @param parkVirtualThreads True if a submitting virtual thread waits for a slot
+     *                           instead of being rejected
+     * @return a new executor
+     */
+    public static Executor bounded(ExecutorService executorService, int maxTasks, boolean parkVirtualThreads) {
+        return new BoundedExecutor(executorService, maxTasks, parkVirtualThreads);
+    }
+
+    /**
+     * Factory of a rate-limited executor decorator using the shared timer. Tasks are started
+     * at a sustained rate, bursts being absorbed up to a given number of tasks, and tasks over
+     * the quota wait in a queue without holding any thread.
+     *
+     * @param executor         The decorated executor
+     * @param permitsPerSecond The sustained rate
+     * @param burst            The maximum number of tasks started at once
+     * @return a new executor
+     */
+    public static RateLimitedExecutor rateLimited(Executor executor, double permitsPerSecond, int burst) {
+        return new RateLimitedExecutorImpl(executor, permitsPerSecond, burst, TimerHelper.shared());
+    }
+
+    /**
+     * Factory of a structured concurrency scope
+     *
+     * @param executor The executor starting the children
+     * @return a new scope
+     */
+    public static Scope scope(Executor executor) {
+        return new ScopeImpl(executor);
+    }
+
     /**
      * Await method
      *
@@ -0,0 +1,44 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution;
+
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.data.Unit;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Executor running the tasks of a key one after the other in submission order while
+ * tasks of different keys run in parallel. No thread is dedicated to a key.
+ *
+ * @param <K> The key type
+ */
+public interface KeyedExecutor<K> {
+
+    /**
+     * @param key  The key
+     * @param task The task to be executed after the previous ones of the key
+     * @param <T>  The task result type
+     * @return a promise
+     */
+    <T> Promise<T> async(K key, Callable<T> task);
+
+    /**
+     * @param key  The key
+     * @param task The task to be executed after the previous ones of the key
+     * @return a promise
+     */
+    Promise<Unit> async(K key, Executor.RunnableWithError task);
+
+    /**
+     * @return the number of keys having queued or running tasks
+     */
+    int activeKeys();
+
+}
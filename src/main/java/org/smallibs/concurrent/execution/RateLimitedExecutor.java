@@ -0,0 +1,34 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution;
+
+import java.time.Duration;
+
+/**
+ * An executor limiting the rate at which tasks are started with a token bucket. Tasks
+ * over the quota wait in a queue without holding any thread.
+ */
+public interface RateLimitedExecutor extends Executor {
+
+    /**
+     * Rate limiter metrics
+     *
+     * @param queueDepth    The number of tasks currently waiting for a token
+     * @param throttled     The number of started tasks which waited for a token
+     * @param throttledTime The cumulated waiting time of the started tasks
+     */
+    record Metrics(long queueDepth, long throttled, Duration throttledTime) {
+    }
+
+    /**
+     * @return a snapshot of the metrics
+     */
+    Metrics metrics();
+
+}
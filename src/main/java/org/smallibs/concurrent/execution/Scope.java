@@ -0,0 +1,54 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution;
+
+import java.time.Duration;
+
+/**
+ * A structured concurrency scope. Tasks started with a scope are its children: when one
+ * of them fails the other ones are cancelled, and closing the scope cancels the remaining
+ * children and waits for their termination so no subtask outlives the scope.
+ * <pre>
+ * try (Scope scope = executor.scope()) {
+ *     Promise&lt;A&gt; a = scope.async(...);
+ *     Promise&lt;B&gt; b = scope.async(...);
+ *     scope.join(Duration.ofSeconds(1));
+ *     ...
+ * }
+ * </pre>
+ * A scope is owned by the thread which opened it: join and close must be called by this thread.
+ */
+public interface Scope extends Executor, AutoCloseable {
+
+    /**
+     * Waits for the termination of all the children started so far. When a child fails the
+     * other ones are cancelled and, once they are all terminated, the first failure is thrown
+     * with the failures of the other children as suppressed exceptions.
+     *
+     * @param duration The wait duration before timeout
+     * @throws Throwable the first failure, a TimeoutException or an InterruptedException
+     */
+    void join(Duration duration) throws Throwable;
+
+    /**
+     * Waits for the termination of all the children started so far.
+     *
+     * @throws Throwable the first failure or an InterruptedException
+     * @see #join(Duration)
+     */
+    void join() throws Throwable;
+
+    /**
+     * Closes the scope: no more task can be started, the running children are cancelled and
+     * this method returns once all of them are terminated. Failures are only reported by join.
+     */
+    @Override
+    void close();
+
+}
@@ -0,0 +1,138 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution.impl;
+
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.impl.RunnablePromise;
+import org.smallibs.concurrent.promise.impl.SolvedPromise;
+import org.smallibs.data.Try;
+import org.smallibs.data.Unit;
+import org.smallibs.exception.RejectedException;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admission-controlled execution media. At most a given number of tasks are queued or
+ * running at the same time. Over this limit a task is rejected before anything is
+ * allocated and the returned promise is a shared one failed with a stackless exception.
+ * Optionally a virtual thread waits for a slot instead, platform threads being always
+ * rejected.
+ */
+public final class BoundedExecutor implements Executor {
+
+    private static final Promise<?> REJECTED = SolvedPromise.failure(RejectedException.INSTANCE);
+
+    private final ExecutorService executorService;
+    private final Semaphore slots;
+    private final boolean parkVirtualThreads;
+
+    /**
+     * Constructor
+     *
+     * @param executorService    The executor service used for asynchronous operation
+     * @param maxTasks           The maximum number of queued and running tasks
+     * @param parkVirtualThreads True if a virtual thread waits for a slot instead of being rejected
+     */
+    public BoundedExecutor(ExecutorService executorService, int maxTasks, boolean parkVirtualThreads) {
+        Objects.requireNonNull(executorService);
+
+        if (maxTasks <= 0) {
+            throw new IllegalArgumentException("max tasks must be positive");
+        }
+
+        this.executorService = executorService;
+        this.slots = new Semaphore(maxTasks);
+        this.parkVirtualThreads = parkVirtualThreads;
+    }
+
+    @Override
+    public <T> Promise<T> async(Callable<T> task) {
+        Objects.requireNonNull(task);
+
+        if (!admit()) {
+            return rejected();
+        }
+
+        return execute(new RunnablePromise<>(task, this));
+    }
+
+    @Override
+    public Promise<Unit> async(RunnableWithError task) {
+        Objects.requireNonNull(task);
+
+        if (!admit()) {
+            return rejected();
+        }
+
+        return execute(new RunnablePromise<>(() -> {
+            task.run();
+            return Unit.unit;
+        }, this));
+    }
+
+    @Override
+    public boolean isCurrent() {
+        return RunnablePromise.currentOwner() == this;
+    }
+
+    /**
+     * @return the number of tasks which can still be admitted
+     */
+    public int available() {
+        return this.slots.availablePermits();
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private boolean admit() {
+        if (this.slots.tryAcquire()) {
+            return true;
+        }
+
+        if (this.parkVirtualThreads && Thread.currentThread().isVirtual()) {
+            try {
+                this.slots.acquire();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return false;
+    }
+
+    private <T> Promise<T> execute(RunnablePromise<T> runnablePromise) {
+        try {
+            // The slot is freed when the task leaves the queue, even if it has been cancelled
+            this.executorService.execute(() -> {
+                try {
+                    runnablePromise.run();
+                } finally {
+                    this.slots.release();
+                }
+            });
+        } catch (Throwable throwable) {
+            this.slots.release();
+            runnablePromise.solve(Try.failure(throwable));
+        }
+
+        return runnablePromise;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Promise<T> rejected() {
+        return (Promise<T>) REJECTED;
+    }
+}
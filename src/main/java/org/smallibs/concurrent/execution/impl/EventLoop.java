@@ -0,0 +1,174 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution.impl;
+
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.impl.ConfinedPromise;
+import org.smallibs.concurrent.promise.impl.SolvedPromise;
+import org.smallibs.data.Try;
+import org.smallibs.data.Unit;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-threaded event loop. Tasks are queued in a lock-free queue and run in order by
+ * a dedicated daemon thread which parks when no task is queued. Promises returned by the
+ * loop are confined to its thread.
+ * <p>
+ * Once closed the loop runs the queued tasks then terminates. A task queued while the loop
+ * terminates is either run by its last drain or withdrawn and rejected, so no task is lost.
+ */
+public final class EventLoop implements Executor {
+
+    private final Queue<Runnable> tasks;
+    private final Thread thread;
+    private final ConfinedPromise.Owner owner;
+
+    /**
+     * True when the thread is parked waiting for a task
+     */
+    private volatile boolean idle;
+
+    private volatile boolean closed;
+
+    /**
+     * True once the loop does its last drain of the queue
+     */
+    private volatile boolean terminated;
+
+    public EventLoop(String name) {
+        Objects.requireNonNull(name);
+
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.idle = false;
+        this.closed = false;
+        this.terminated = false;
+        this.thread = Thread.ofPlatform().name(name).daemon().unstarted(this::work);
+        this.owner = new ConfinedPromise.Owner(this.thread, this::execute);
+        this.thread.start();
+    }
+
+    @Override
+    public <T> Promise<T> async(Callable<T> task) {
+        Objects.requireNonNull(task);
+
+        if (this.closed) {
+            return SolvedPromise.failure(new RejectedExecutionException("event loop is closed"));
+        }
+
+        final ConfinedPromise<T> promise = new ConfinedPromise<>(this.owner);
+
+        try {
+            execute(() -> {
+                // A cancelled task is dropped before being started
+                if (!promise.isDone()) {
+                    Try<T> response;
+
+                    try {
+                        response = Try.success(task.call());
+                    } catch (Throwable throwable) {
+                        response = Try.failure(throwable);
+                    }
+
+                    promise.solve(response);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Closed while submitting
+            return SolvedPromise.failure(e);
+        }
+
+        return promise;
+    }
+
+    @Override
+    public Promise<Unit> async(RunnableWithError task) {
+        Objects.requireNonNull(task);
+
+        return async(() -> {
+            task.run();
+            return Unit.unit;
+        });
+    }
+
+    @Override
+    public boolean isCurrent() {
+        return Thread.currentThread() == this.thread;
+    }
+
+    /**
+     * Queues a task run by the loop thread
+     *
+     * @param task The task
+     * @throws RejectedExecutionException if the loop is terminated
+     */
+    public void execute(Runnable task) {
+        this.tasks.add(task);
+
+        // Queued after the last drain unless the loop polls it first
+        if (this.terminated && this.tasks.remove(task)) {
+            throw new RejectedExecutionException("event loop is closed");
+        }
+
+        if (this.idle) {
+            LockSupport.unpark(this.thread);
+        }
+    }
+
+    /**
+     * Stops the loop once the queued tasks are done
+     */
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.thread);
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void work() {
+        for (; ; ) {
+            drain();
+
+            if (this.closed) {
+                // Tasks queued before the termination is visible are run by this last drain
+                this.terminated = true;
+                drain();
+                return;
+            }
+
+            this.idle = true;
+
+            if (this.tasks.isEmpty() && !this.closed) {
+                LockSupport.park(this);
+            }
+
+            this.idle = false;
+        }
+    }
+
+    private void drain() {
+        Runnable task;
+
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Throwable throwable) {
+                this.thread.getUncaughtExceptionHandler().uncaughtException(this.thread, throwable);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution.impl;
+
+import org.smallibs.concurrent.execution.EventLoopGroup;
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.data.Unit;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Group of event loops. Tasks are spread on the loops in a round-robin manner unless they
+ * are started from a loop of the group, and keys are mapped to loops by their hash code.
+ */
+public final class EventLoopGroupImpl implements EventLoopGroup {
+
+    private final EventLoop[] loops;
+    private final AtomicInteger next;
+
+    public EventLoopGroupImpl(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+
+        this.loops = new EventLoop[size];
+        this.next = new AtomicInteger(0);
+
+        for (int i = 0; i < size; i++) {
+            this.loops[i] = new EventLoop("hpas-loop-" + i);
+        }
+    }
+
+    @Override
+    public <T> Promise<T> async(Callable<T> task) {
+        return select().async(task);
+    }
+
+    @Override
+    public Promise<Unit> async(RunnableWithError task) {
+        return select().async(task);
+    }
+
+    @Override
+    public boolean isCurrent() {
+        return current() != null;
+    }
+
+    @Override
+    public Executor loop(Object key) {
+        Objects.requireNonNull(key);
+
+        final int hash = key.hashCode();
+        return this.loops[Math.floorMod(hash ^ (hash >>> 16), this.loops.length)];
+    }
+
+    @Override
+    public int size() {
+        return this.loops.length;
+    }
+
+    @Override
+    public void close() {
+        for (final EventLoop loop : this.loops) {
+            loop.close();
+        }
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private EventLoop select() {
+        final EventLoop current = current();
+
+        if (current != null) {
+            return current;
+        }
+
+        return this.loops[Math.floorMod(this.next.getAndIncrement(), this.loops.length)];
+    }
+
+    private EventLoop current() {
+        for (final EventLoop loop : this.loops) {
+            if (loop.isCurrent()) {
+                return loop;
+            }
+        }
+
+        return null;
+    }
+}
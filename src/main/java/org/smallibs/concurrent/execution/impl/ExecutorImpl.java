@@ -40,9 +40,9 @@ public final class ExecutorImpl implements Executor {
     public <T> Promise<T> async(Callable<T> task) {
         Objects.requireNonNull(task);
 
-        final RunnablePromise<T> runnablePromise = new RunnablePromise<>(task);
+        final RunnablePromise<T> runnablePromise = new RunnablePromise<>(task, this);
 
-        this.executorService.execute(runnablePromise);
+        this.execute(runnablePromise);
         return runnablePromise;
     }
 
@@ -53,9 +53,22 @@ public final class ExecutorImpl implements Executor {
         final RunnablePromise<Unit> runnablePromise = new RunnablePromise<>(() -> {
             task.run();
             return Unit.unit;
-        });
+        }, this);
 
-        this.executorService.execute(runnablePromise);
+        this.execute(runnablePromise);
         return runnablePromise;
     }
+
+    @Override
+    public boolean isCurrent() {
+        return RunnablePromise.currentOwner() == this;
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void execute(RunnablePromise<?> runnablePromise) {
+        this.executorService.execute(runnablePromise);
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution.impl;
+
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.impl.RunnablePromise;
+import org.smallibs.data.Unit;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Work-stealing execution media. A task started from a worker of the pool is pushed onto
+ * the local deque of this worker, idle workers stealing it from the other end, while a
+ * task started from any other thread is submitted to the pool. Since callbacks are run
+ * by the thread solving the promise, the continuations of a task are run by its worker
+ * and the tasks they start are pushed onto the same deque. Recursive jobs then keep
+ * their data in the worker cache and do not contend on a shared queue.
+ */
+public final class ForkJoinExecutor implements Executor {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor
+     *
+     * @param pool The fork join pool used for asynchronous operation
+     */
+    public ForkJoinExecutor(ForkJoinPool pool) {
+        Objects.requireNonNull(pool);
+
+        this.pool = pool;
+    }
+
+    @Override
+    public <T> Promise<T> async(Callable<T> task) {
+        Objects.requireNonNull(task);
+
+        final RunnablePromise<T> runnablePromise = new RunnablePromise<>(task, this);
+
+        this.execute(runnablePromise);
+        return runnablePromise;
+    }
+
+    @Override
+    public Promise<Unit> async(RunnableWithError task) {
+        Objects.requireNonNull(task);
+
+        final RunnablePromise<Unit> runnablePromise = new RunnablePromise<>(() -> {
+            task.run();
+            return Unit.unit;
+        }, this);
+
+        this.execute(runnablePromise);
+        return runnablePromise;
+    }
+
+    @Override
+    public boolean isCurrent() {
+        return Thread.currentThread() instanceof ForkJoinWorkerThread worker && worker.getPool() == this.pool;
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void execute(RunnablePromise<?> runnablePromise) {
+        if (isCurrent()) {
+            ForkJoinTask.adapt(runnablePromise).fork();
+        } else {
+            this.pool.execute(runnablePromise);
+        }
+    }
+}
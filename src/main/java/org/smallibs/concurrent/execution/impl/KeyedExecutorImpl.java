@@ -0,0 +1,184 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution.impl;
+
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.execution.KeyedExecutor;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.impl.RunnablePromise;
+import org.smallibs.data.Try;
+import org.smallibs.data.Unit;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keyed serial executor. Each active key has a lock-free queue of tasks drained by a
+ * single step at a time: the submission incrementing the work-in-progress counter from
+ * zero starts a step on the executor service and each step runs one task before starting
+ * the next one, so keys share the threads fairly. Once its queue is empty a key is retired
+ * and removed, then idle keys hold no memory; a submission racing with the retirement
+ * moves to a new queue. When the executor service rejects a step, e.g. once shut down,
+ * the queued tasks of the key are failed with the rejection and the key is retired.
+ */
+public final class KeyedExecutorImpl<K> implements KeyedExecutor<K> {
+
+    private static final int RETIRED = -1;
+
+    private final ExecutorService executorService;
+    private final ConcurrentHashMap<K, Serial> serials;
+
+    /**
+     * Constructor
+     *
+     * @param executorService The executor service shared by the keys
+     */
+    public KeyedExecutorImpl(ExecutorService executorService) {
+        Objects.requireNonNull(executorService);
+
+        this.executorService = executorService;
+        this.serials = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public <T> Promise<T> async(K key, Callable<T> task) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(task);
+
+        // No owner: an await never runs a task inline i.e. before the previous ones of its key
+        final RunnablePromise<T> runnablePromise = new RunnablePromise<>(task);
+
+        submit(key, runnablePromise);
+        return runnablePromise;
+    }
+
+    @Override
+    public Promise<Unit> async(K key, Executor.RunnableWithError task) {
+        Objects.requireNonNull(task);
+
+        return async(key, () -> {
+            task.run();
+            return Unit.unit;
+        });
+    }
+
+    @Override
+    public int activeKeys() {
+        return this.serials.size();
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void submit(K key, RunnablePromise<?> task) {
+        for (; ; ) {
+            Serial serial = this.serials.get(key);
+
+            if (serial == null) {
+                final Serial created = new Serial(key);
+                serial = this.serials.putIfAbsent(key, created);
+
+                if (serial == null) {
+                    serial = created;
+                }
+            }
+
+            if (serial.offer(task)) {
+                return;
+            }
+
+            // Retired while submitting: the removal may not be done yet
+            this.serials.remove(key, serial);
+        }
+    }
+
+    //
+    // Internal classes
+    //
+
+    private final class Serial implements Runnable {
+        private final K key;
+        private final Queue<RunnablePromise<?>> tasks;
+
+        /**
+         * Counted tasks not yet run or RETIRED
+         */
+        private final AtomicInteger wip;
+
+        private Serial(K key) {
+            this.key = key;
+            this.tasks = new ConcurrentLinkedQueue<>();
+            this.wip = new AtomicInteger(0);
+        }
+
+        /**
+         * @return false if the serial is retired, the task being then not queued
+         */
+        private boolean offer(RunnablePromise<?> task) {
+            this.tasks.add(task);
+
+            for (; ; ) {
+                final int current = this.wip.get();
+
+                if (current == RETIRED) {
+                    // No step runs once retired: the task can only have been polled and failed
+                    // by a rejection, a failed task being then skipped by the next serial
+                    this.tasks.remove(task);
+                    return false;
+                }
+
+                if (this.wip.compareAndSet(current, current + 1)) {
+                    if (current == 0) {
+                        start();
+                    }
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            // The queue holds at least as many tasks as counted
+            final RunnablePromise<?> task = this.tasks.poll();
+
+            try {
+                task.run();
+            } finally {
+                if (this.wip.decrementAndGet() > 0) {
+                    start();
+                } else if (this.tasks.isEmpty() && this.wip.compareAndSet(0, RETIRED)) {
+                    serials.remove(this.key, this);
+                }
+                // Otherwise a queued task is not counted yet: its submission starts the next step
+            }
+        }
+
+        private void start() {
+            try {
+                executorService.execute(this);
+            } catch (RejectedExecutionException e) {
+                // No step drains the queue anymore: retired so next submissions move to a new queue
+                this.wip.set(RETIRED);
+                serials.remove(this.key, this);
+
+                RunnablePromise<?> task;
+                while ((task = this.tasks.poll()) != null) {
+                    task.solve(Try.failure(e));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution.impl;
+
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.execution.RateLimitedExecutor;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.impl.DeferredPromise;
+import org.smallibs.concurrent.timer.Timer;
+import org.smallibs.data.Try;
+import org.smallibs.data.Unit;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate-limited executor decorator. Tasks are queued in a lock-free queue and started in
+ * order while the token bucket is not empty. The bucket is only accessed by a single
+ * draining thread: the thread which increments the work-in-progress counter from zero
+ * drains the queue. When the bucket is empty a single timeout is scheduled for the next
+ * token and no thread waits. The refill drain is then handed off to the common pool so
+ * neither the submissions nor the completions run on the timer thread.
+ */
+public final class RateLimitedExecutorImpl implements RateLimitedExecutor {
+
+    private final Executor executor;
+    private final Timer timer;
+    private final long nanosPerToken;
+    private final long burst;
+
+    private final Queue<Pending<?>> pending;
+    private final AtomicInteger depth;
+    private final AtomicInteger wip;
+    private final AtomicBoolean scheduled;
+    private final LongAdder throttled;
+    private final LongAdder throttledTime;
+
+    // Owned by the draining thread
+    private double tokens;
+    private long refilledAt;
+    private boolean throttling;
+
+    /**
+     * Constructor
+     *
+     * @param executor         The executor starting the tasks
+     * @param permitsPerSecond The sustained rate
+     * @param burst            The maximum number of tasks started at once
+     * @param timer            The timer releasing queued tasks
+     */
+    public RateLimitedExecutorImpl(Executor executor, double permitsPerSecond, int burst, Timer timer) {
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(timer);
+
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permits per second must be positive");
+        }
+
+        if (burst <= 0) {
+            throw new IllegalArgumentException("burst must be positive");
+        }
+
+        this.executor = executor;
+        this.timer = timer;
+        this.nanosPerToken = Math.max(1L, (long) (1e9 / permitsPerSecond));
+        this.burst = burst;
+
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.depth = new AtomicInteger(0);
+        this.wip = new AtomicInteger(0);
+        this.scheduled = new AtomicBoolean(false);
+        this.throttled = new LongAdder();
+        this.throttledTime = new LongAdder();
+
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+        this.throttling = false;
+    }
+
+    @Override
+    public <T> Promise<T> async(Callable<T> task) {
+        Objects.requireNonNull(task);
+
+        final Pending<T> entry = new Pending<>(task, System.nanoTime());
+
+        this.pending.add(entry);
+        this.depth.incrementAndGet();
+
+        drain();
+
+        return entry.promise;
+    }
+
+    @Override
+    public Promise<Unit> async(RunnableWithError task) {
+        Objects.requireNonNull(task);
+
+        return async(() -> {
+            task.run();
+            return Unit.unit;
+        });
+    }
+
+    @Override
+    public Metrics metrics() {
+        return new Metrics(depth.get(), throttled.sum(), Duration.ofNanos(throttledTime.sum()));
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void drain() {
+        if (this.wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+
+        do {
+            release();
+            missed = this.wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void release() {
+        refill();
+
+        Pending<?> entry;
+
+        while ((entry = this.pending.peek()) != null) {
+            // Cancelled tasks are dropped without consuming a token
+            if (entry.promise.getFuture().isDone()) {
+                dequeue();
+                continue;
+            }
+
+            if (this.tokens < 1) {
+                // Until the queue is empty started tasks have waited for a token
+                this.throttling = true;
+                scheduleRefill();
+                return;
+            }
+
+            this.tokens -= 1;
+            dequeue();
+            start(entry);
+        }
+
+        this.throttling = false;
+    }
+
+    private void refill() {
+        final long now = System.nanoTime();
+
+        this.tokens = Math.min(this.burst, this.tokens + (double) (now - this.refilledAt) / this.nanosPerToken);
+        this.refilledAt = now;
+    }
+
+    private void dequeue() {
+        this.pending.poll();
+        this.depth.decrementAndGet();
+    }
+
+    private void scheduleRefill() {
+        if (this.scheduled.compareAndSet(false, true)) {
+            final long delay = (long) ((1 - this.tokens) * this.nanosPerToken);
+
+            this.timer.schedule(() -> {
+                this.scheduled.set(false);
+                drain();
+            }, Duration.ofNanos(delay), ForkJoinPool.commonPool());
+        }
+    }
+
+    private <T> void start(Pending<T> entry) {
+        if (this.throttling) {
+            this.throttled.increment();
+            this.throttledTime.add(System.nanoTime() - entry.queuedAt);
+        }
+
+        try {
+            entry.promise.bind(this.executor.async(entry.task));
+        } catch (Throwable throwable) {
+            entry.promise.solve(Try.failure(throwable));
+        }
+    }
+
+    //
+    // Internal classes
+    //
+
+    private static final class Pending<T> {
+        private final Callable<T> task;
+        private final long queuedAt;
+        private final DeferredPromise<T> promise;
+
+        private Pending(Callable<T> task, long queuedAt) {
+            this.task = task;
+            this.queuedAt = queuedAt;
+            this.promise = new DeferredPromise<>();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution.impl;
+
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.execution.Scope;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.data.Try;
+import org.smallibs.data.Unit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured concurrency scope on top of an executor. Each child task is wrapped in order
+ * to know when it terminates i.e. when its code has returned or when it has been dropped
+ * before being started. The number of running children plus one for the owner is kept in
+ * a counter and the owner parks until it reaches the expected value.
+ */
+public final class ScopeImpl implements Scope {
+
+    private final Executor executor;
+    private final Map<Promise<?>, Child<?>> children;
+    private final AtomicInteger running;
+    private final AtomicReference<Throwable> firstFailure;
+    private final Queue<Throwable> otherFailures;
+
+    private volatile boolean closed;
+    private volatile boolean cancelled;
+    private volatile Thread joiner;
+
+    public ScopeImpl(Executor executor) {
+        Objects.requireNonNull(executor);
+
+        this.executor = executor;
+        this.children = new ConcurrentHashMap<>();
+        this.running = new AtomicInteger(1);
+        this.firstFailure = new AtomicReference<>();
+        this.otherFailures = new ConcurrentLinkedQueue<>();
+        this.closed = false;
+        this.cancelled = false;
+        this.joiner = null;
+    }
+
+    @Override
+    public <T> Promise<T> async(Callable<T> task) {
+        Objects.requireNonNull(task);
+
+        if (this.closed) {
+            throw new IllegalStateException("scope is closed");
+        }
+
+        final Child<T> child = new Child<>(task);
+
+        this.running.incrementAndGet();
+
+        final Promise<T> promise;
+
+        try {
+            promise = this.executor.async(child);
+        } catch (Throwable throwable) {
+            exit();
+            throw throwable;
+        }
+
+        this.children.put(promise, child);
+
+        promise.onComplete(response -> {
+            this.children.remove(promise);
+
+            // Dropped or rejected before being started
+            if (child.abandon()) {
+                if (response instanceof Try.Failure<T> failure) {
+                    fail(failure.value());
+                }
+
+                exit();
+            }
+        });
+
+        // Started while the scope was closing or failing
+        if (this.cancelled && !child.isFinished()) {
+            promise.cancel();
+        }
+
+        return promise;
+    }
+
+    @Override
+    public Promise<Unit> async(RunnableWithError task) {
+        Objects.requireNonNull(task);
+
+        return async(() -> {
+            task.run();
+            return Unit.unit;
+        });
+    }
+
+    @Override
+    public void join(Duration duration) throws Throwable {
+        Objects.requireNonNull(duration);
+
+        await(1, System.nanoTime() + duration.toNanos(), true);
+
+        final Throwable failure = this.firstFailure.get();
+
+        if (failure != null) {
+            // Other failures may be raised until the cancelled children are terminated
+            await(1, 0, false);
+            throw withSuppressed(failure);
+        }
+    }
+
+    @Override
+    public void join() throws Throwable {
+        await(1, 0, false);
+
+        final Throwable failure = this.firstFailure.get();
+
+        if (failure != null) {
+            throw withSuppressed(failure);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        cancelChildren();
+        exit();
+
+        boolean interrupted = false;
+
+        for (; ; ) {
+            try {
+                await(0, 0, false);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (Throwable e) {
+                // Not raised without a deadline
+                break;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void await(int target, long deadline, boolean timed) throws InterruptedException, TimeoutException {
+        this.joiner = Thread.currentThread();
+
+        try {
+            while (this.running.get() > target && !(timed && this.firstFailure.get() != null)) {
+                if (timed) {
+                    final long remaining = deadline - System.nanoTime();
+
+                    if (remaining <= 0) {
+                        throw new TimeoutException();
+                    }
+
+                    LockSupport.parkNanos(this, remaining);
+                } else {
+                    LockSupport.park(this);
+                }
+
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            this.joiner = null;
+        }
+    }
+
+    private void exit() {
+        if (this.running.decrementAndGet() <= 1) {
+            wakeUp();
+        }
+    }
+
+    private void fail(Throwable throwable) {
+        if (throwable instanceof CancellationException) {
+            return;
+        }
+
+        if (this.firstFailure.compareAndSet(null, throwable)) {
+            cancelChildren();
+            wakeUp();
+        } else if (!(this.cancelled && throwable instanceof InterruptedException)) {
+            // Interruptions due to the cancellation are not failures
+            this.otherFailures.add(throwable);
+        }
+    }
+
+    private void cancelChildren() {
+        this.cancelled = true;
+
+        // A finished child keeps its response, in particular the failure cancelling the scope
+        this.children.forEach((promise, child) -> {
+            if (!child.isFinished()) {
+                promise.cancel();
+            }
+        });
+    }
+
+    private void wakeUp() {
+        final Thread thread = this.joiner;
+
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private Throwable withSuppressed(Throwable failure) {
+        Throwable other;
+
+        while ((other = this.otherFailures.poll()) != null) {
+            if (other != failure) {
+                failure.addSuppressed(other);
+            }
+        }
+
+        return failure;
+    }
+
+    //
+    // Internal classes
+    //
+
+    private final class Child<T> implements Callable<T> {
+        private static final int PENDING = 0;
+        private static final int STARTED = 1;
+        private static final int ABANDONED = 2;
+
+        private final Callable<T> task;
+        private final AtomicInteger state;
+        private volatile boolean finished;
+
+        private Child(Callable<T> task) {
+            this.task = task;
+            this.state = new AtomicInteger(PENDING);
+            this.finished = false;
+        }
+
+        @Override
+        public T call() throws Exception {
+            if (!this.state.compareAndSet(PENDING, STARTED)) {
+                throw new CancellationException();
+            }
+
+            try {
+                return this.task.call();
+            } catch (Throwable throwable) {
+                this.finished = true;
+                fail(throwable);
+                throw throwable;
+            } finally {
+                this.finished = true;
+                exit();
+            }
+        }
+
+        private boolean isFinished() {
+            return this.finished;
+        }
+
+        private boolean abandon() {
+            return this.state.compareAndSet(PENDING, ABANDONED);
+        }
+    }
+}
@@ -8,6 +8,7 @@
 
 package org.smallibs.concurrent.promise;
 
+import org.smallibs.concurrent.execution.Executor;
 import org.smallibs.control.Filter;
 import org.smallibs.data.Try;
 import org.smallibs.type.HK;
@@ -49,6 +50,16 @@ public interface Promise<T> extends Filter<Promise, T, Promise<T>>, HK<Promise,
     @Deprecated
     Future<T> getFuture();
 
+    /**
+     * Cancels the promise when it is not yet completed. Callbacks are then activated with
+     * a CancellationException. The cancellation is propagated to the promises derived
+     * from this one and to the promise this one depends on when it was its last dependent.
+     * A running task is interrupted.
+     *
+     * @return true if the promise has been cancelled, false otherwise
+     */
+    boolean cancel();
+
     /**
      * Method called when we want the result in a direct style.
      * <p>
@@ -110,6 +121,37 @@ public interface Promise<T> extends Filter<Promise, T, Promise<T>>, HK<Promise,
      */
     Promise<T> onComplete(Consumer<Try<T>> consumer);
 
+    /**
+     * Callback called on the given executor when the computation terminates. It is run
+     * inline when the computation terminates in a task of this executor.
+     *
+     * @param consumer The callback to be activated on completion
+     * @param executor The executor running the callback
+     * @return the current promise
+     */
+    Promise<T> onCompleteAsync(Consumer<Try<T>> consumer, Executor executor);
+
+    /**
+     * Method used to bound the duration of the computation. The returned promise fails with
+     * a TimeoutException when the current one is not completed before the given duration.
+     * The current promise is then released i.e. cancelled if nothing else depends on it.
+     *
+     * @param duration The maximum duration
+     * @return a new promise
+     */
+    Promise<T> orTimeout(Duration duration);
+
+    /**
+     * Method used to bound the duration of the computation. The returned promise succeeds with
+     * the given value when the current one is not completed before the given duration. The
+     * current promise is then released i.e. cancelled if nothing else depends on it.
+     *
+     * @param value    The value used on timeout
+     * @param duration The maximum duration
+     * @return a new promise
+     */
+    Promise<T> completeOnTimeout(T value, Duration duration);
+
     /**
      * Method used to map a function. This mapping is done when the operation is a success.
      * The result of this mapping is a new promise component.
@@ -120,6 +162,18 @@ public interface Promise<T> extends Filter<Promise, T, Promise<T>>, HK<Promise,
      */
     <R> Promise<R> map(FunctionWithError<? super T, ? extends R> function);
 
+    /**
+     * Method used to map a function on the given executor. This mapping is done in a single
+     * task submitted when the operation is a success, or inline when the operation succeeds in
+     * a task of this executor, so consecutive stages bound to the same executor stay on it.
+     *
+     * @param <R>      the promised value type
+     * @param function The function to apply on success which can raise an error
+     * @param executor The executor running the function
+     * @return a new promise
+     */
+    <R> Promise<R> mapAsync(FunctionWithError<? super T, ? extends R> function, Executor executor);
+
     /**
      * Method used to map a function on success and another one on error.
      * The result of this mapping is a new promise component.
@@ -156,6 +210,18 @@ public interface Promise<T> extends Filter<Promise, T, Promise<T>>, HK<Promise,
      */
     <R> Promise<R> flatmap(Function<? super T, Promise<R>> function);
 
+    /**
+     * Method used to flatmap a function on the given executor. This mapping is done in a single
+     * task submitted when the operation is a success, or inline when the operation succeeds in
+     * a task of this executor, so consecutive stages bound to the same executor stay on it.
+     *
+     * @param <R>      the promised value type
+     * @param function The function to apply on success
+     * @param executor The executor running the function
+     * @return a new promise
+     */
+    <R> Promise<R> flatmapAsync(Function<? super T, Promise<R>> function, Executor executor);
+
     /**
      * Method used when a new asynchronous computation must be done when the current one succeeds.
      * The current one and the chained one are not done sequentially in the same context.
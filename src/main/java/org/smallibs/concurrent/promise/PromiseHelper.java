@@ -8,21 +8,28 @@
 
 package org.smallibs.concurrent.promise;
 
+import org.smallibs.concurrent.promise.impl.AllPromise;
+import org.smallibs.concurrent.promise.impl.LoopPromise;
 import org.smallibs.concurrent.promise.impl.PromisesSet;
-import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.concurrent.promise.impl.RacePromise;
+import org.smallibs.concurrent.promise.impl.RetryPromise;
 import org.smallibs.concurrent.promise.impl.SolvedPromise;
+import org.smallibs.concurrent.promise.impl.TraversePromise;
+import org.smallibs.concurrent.timer.TimerHelper;
 import org.smallibs.control.Applicative;
 import org.smallibs.control.Functor;
 import org.smallibs.control.Monad;
-import org.smallibs.data.Try;
 import org.smallibs.data.Unit;
 import org.smallibs.type.HK;
 import org.smallibs.util.FunctionsHelper;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @SuppressWarnings("rawtypes")
 public enum PromiseHelper {
@@ -41,29 +48,42 @@ public enum PromiseHelper {
     }
 
     public static <T> Promise<T> success(T t) {
-        return new SolvedPromise<>(Try.success(t));
+        return SolvedPromise.success(t);
     }
 
     public static <T> Promise<T> failure(Throwable t) {
-        return new SolvedPromise<>(Try.failure(t));
+        return SolvedPromise.failure(t);
     }
 
     public static Promise<Unit> join(Promise... promises) {
         return new PromisesSet(PromisesSet.Strategy.NO_STOP, promises);
     }
 
+    /**
+     * Collects the values of successful promises in the input order. Failures are skipped.
+     *
+     * @param <T>      The value type
+     * @param promises The promises
+     * @return a promise of the successful values
+     */
     public static <T> Promise<List<T>> sequence(List<Promise<T>> promises) {
-        final List<T> result = Collections.synchronizedList(new ArrayList<>());
-        final SolvablePromise<List<T>> solvablePromise = new SolvablePromise<>();
-        final Promise[] promisesArray = promises.stream()
-                .map(p -> p.onSuccess(result::add))
-                .toArray(Promise[]::new);
+        Objects.requireNonNull(promises);
 
-        PromiseHelper
-                .join(promisesArray)
-                .onComplete(c -> solvablePromise.solve(Try.pure(result)));
+        return new AllPromise<>(promises, false);
+    }
+
+    /**
+     * Collects the values of all promises in the input order. The first failure fails
+     * the returned promise and releases the pending ones.
+     *
+     * @param <T>      The value type
+     * @param promises The promises
+     * @return a promise of all values
+     */
+    public static <T> Promise<List<T>> all(List<Promise<T>> promises) {
+        Objects.requireNonNull(promises);
 
-        return solvablePromise;
+        return new AllPromise<>(promises, true);
     }
 
     public static Promise<Unit> forall(Promise... promises) {
@@ -74,6 +94,118 @@ public enum PromiseHelper {
         return new PromisesSet(PromisesSet.Strategy.STOP_ON_SUCCESS, promises);
     }
 
+    /**
+     * Returns the response of the first completed promise. The other ones are then released.
+     *
+     * @param <T>      The value type
+     * @param promises The competing promises
+     * @return a promise of the first response
+     */
+    @SafeVarargs
+    public static <T> Promise<T> race(Promise<T>... promises) {
+        // Elements are copied: the varargs array is never exposed
+        final List<Promise<T>> competing = new ArrayList<>(promises.length);
+        for (final Promise<T> promise : promises) {
+            competing.add(promise);
+        }
+
+        return new RacePromise<>(false, competing);
+    }
+
+    /**
+     * Returns the value of the first successful promise. The other ones are then released.
+     * When all promises fail the returned promise fails with a NoValueException carrying
+     * the failures as suppressed exceptions.
+     *
+     * @param <T>      The value type
+     * @param promises The competing promises
+     * @return a promise of the first value
+     */
+    @SafeVarargs
+    public static <T> Promise<T> firstSuccess(Promise<T>... promises) {
+        final List<Promise<T>> competing = new ArrayList<>(promises.length);
+        for (final Promise<T> promise : promises) {
+            competing.add(promise);
+        }
+
+        return new RacePromise<>(true, competing);
+    }
+
+    /**
+     * Maps elements to promises with at most a given number of promises in flight. Elements
+     * are lazily pulled and the values are collected in the elements order. The first failure
+     * fails the returned promise and releases the promises in flight.
+     *
+     * @param <A>         The element type
+     * @param <B>         The value type
+     * @param elements    The elements
+     * @param function    The function producing a promise for each element
+     * @param parallelism The maximum number of promises in flight
+     * @return a promise of the values in the elements order
+     */
+    public static <A, B> Promise<List<B>> traverse(Iterable<? extends A> elements, Function<? super A, Promise<B>> function, int parallelism) {
+        return new TraversePromise<>(elements, function, parallelism, true);
+    }
+
+    /**
+     * Maps elements to promises with at most a given number of promises in flight. Elements
+     * are lazily pulled and the values are collected in the completion order. The first failure
+     * fails the returned promise and releases the promises in flight.
+     *
+     * @param <A>         The element type
+     * @param <B>         The value type
+     * @param elements    The elements
+     * @param function    The function producing a promise for each element
+     * @param parallelism The maximum number of promises in flight
+     * @return a promise of the values in the completion order
+     */
+    public static <A, B> Promise<List<B>> traverseUnordered(Iterable<? extends A> elements, Function<? super A, Promise<B>> function, int parallelism) {
+        return new TraversePromise<>(elements, function, parallelism, false);
+    }
+
+    /**
+     * Retries an action while it fails with a retryable failure. Waits between attempts are
+     * scheduled on the shared timer and do not hold any thread; retries are then started by
+     * the common pool.
+     *
+     * @param <T>    The value type
+     * @param action The action producing a promise for each attempt
+     * @param policy The retry policy
+     * @return a promise of the first successful attempt or of the last failure
+     */
+    public static <T> Promise<T> retry(Supplier<Promise<T>> action, RetryPolicy policy) {
+        return new RetryPromise<>(action, policy, TimerHelper.shared(), ForkJoinPool.commonPool()).start();
+    }
+
+    /**
+     * Asynchronous loop applying a step from an initial value until a value satisfies
+     * a given predicate. The memory does not depend on the number of iterations.
+     *
+     * @param <T>  The value type
+     * @param seed The initial value
+     * @param step The step producing the next value
+     * @param done The predicate stopping the loop
+     * @return a promise of the first value satisfying the predicate
+     */
+    public static <T> Promise<T> iterate(T seed, Function<? super T, Promise<T>> step, Predicate<? super T> done) {
+        return new LoopPromise<>(step, done).startWith(seed);
+    }
+
+    /**
+     * Asynchronous loop repeating an action until its value satisfies a given predicate.
+     * The memory does not depend on the number of iterations.
+     *
+     * @param <T>    The value type
+     * @param action The action to be repeated
+     * @param done   The predicate stopping the loop
+     * @return a promise of the first value satisfying the predicate
+     */
+    public static <T> Promise<T> repeatUntil(Supplier<Promise<T>> action, Predicate<? super T> done) {
+        Objects.requireNonNull(action);
+
+        return new LoopPromise<T>(__ -> action.get(), done).startAfter(action.get());
+    }
+
     @SuppressWarnings("unchecked")
     private static <B, S extends HK<Promise, B, S>> HK<Promise, B, Promise<B>> specialize(HK<Promise, B, S> app) {
         return (HK<Promise, B, Promise<B>>) app;
@@ -0,0 +1,106 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise;
+
+import org.smallibs.data.Try;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Retry policy with an exponential backoff. The delay before the attempt n + 1 is
+ * min(maxDelay, initialDelay * multiplier^(n - 1)) reduced by a random part bounded by
+ * the jitter ratio, so that clients failing together do not retry together.
+ *
+ * @param maxAttempts  The maximum number of attempts, the first one included
+ * @param initialDelay The delay before the second attempt
+ * @param maxDelay     The maximum delay between two attempts
+ * @param multiplier   The delay growth factor
+ * @param jitter       The random part of the delay, between 0 and 1
+ * @param retryOn      The predicate selecting the failed responses to be retried
+ */
+public record RetryPolicy(
+        int maxAttempts,
+        Duration initialDelay,
+        Duration maxDelay,
+        double multiplier,
+        double jitter,
+        Predicate<? super Try<?>> retryOn
+) {
+
+    public RetryPolicy {
+        Objects.requireNonNull(initialDelay);
+        Objects.requireNonNull(maxDelay);
+        Objects.requireNonNull(retryOn);
+
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("max attempts must be positive");
+        }
+
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("multiplier must be greater or equal to 1");
+        }
+
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1");
+        }
+    }
+
+    /**
+     * Factory with a multiplier of 2, a jitter of 0.5 and retrying any failure
+     *
+     * @param maxAttempts  The maximum number of attempts, the first one included
+     * @param initialDelay The delay before the second attempt
+     * @param maxDelay     The maximum delay between two attempts
+     * @return a retry policy
+     */
+    public static RetryPolicy exponential(int maxAttempts, Duration initialDelay, Duration maxDelay) {
+        return new RetryPolicy(maxAttempts, initialDelay, maxDelay, 2, 0.5, __ -> true);
+    }
+
+    /**
+     * @param retryOn The predicate selecting the failed responses to be retried
+     * @return a copy of this policy with the given predicate
+     */
+    public RetryPolicy retryOn(Predicate<? super Try<?>> retryOn) {
+        return new RetryPolicy(maxAttempts, initialDelay, maxDelay, multiplier, jitter, retryOn);
+    }
+
+    /**
+     * @param retryOn The predicate selecting the errors of the failed responses to be retried
+     * @return a copy of this policy with the given predicate
+     */
+    public RetryPolicy retryOnFailure(Predicate<? super Throwable> retryOn) {
+        Objects.requireNonNull(retryOn);
+
+        return retryOn(response -> response instanceof Try.Failure<?> failure && retryOn.test(failure.value()));
+    }
+
+    /**
+     * @param jitter The random part of the delay, between 0 and 1
+     * @return a copy of this policy with the given jitter
+     */
+    public RetryPolicy withJitter(double jitter) {
+        return new RetryPolicy(maxAttempts, initialDelay, maxDelay, multiplier, jitter, retryOn);
+    }
+
+    /**
+     * @param attempt The number of the failed attempt, starting at 1
+     * @return the delay before the next attempt
+     */
+    public Duration delay(int attempt) {
+        final double exponential = initialDelay.toNanos() * Math.pow(multiplier, attempt - 1);
+        final double bounded = Math.min(maxDelay.toNanos(), exponential);
+        final double jittered = bounded * (1 - jitter * ThreadLocalRandom.current().nextDouble());
+
+        return Duration.ofNanos((long) jittered);
+    }
+}
@@ -8,12 +8,16 @@
 
 package org.smallibs.concurrent.promise.impl;
 
+import org.smallibs.concurrent.execution.Executor;
 import org.smallibs.concurrent.promise.Promise;
-import org.smallibs.concurrent.promise.PromiseHelper;
-import org.smallibs.exception.FilterException;
+import org.smallibs.concurrent.timer.TimerHelper;
+import org.smallibs.data.Try;
 import org.smallibs.util.FunctionWithError;
 
+import java.time.Duration;
 import java.util.Objects;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -26,7 +30,15 @@ abstract class AbstractPromise<T> implements Promise<T> {
     public final <R> Promise<R> map(FunctionWithError<? super T, ? extends R> function) {
         Objects.requireNonNull(function);
 
-        return new MappedPromise<>(this, function);
+        return MappedPromise.map(this, function);
+    }
+
+    @Override
+    public final <R> Promise<R> mapAsync(FunctionWithError<? super T, ? extends R> function, Executor executor) {
+        Objects.requireNonNull(function);
+        Objects.requireNonNull(executor);
+
+        return AsyncStagePromise.map(this, function, executor);
     }
 
     @Override
@@ -34,7 +46,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
         Objects.requireNonNull(onSuccess);
         Objects.requireNonNull(onError);
 
-        return new BiMappedPromise<>(this, onSuccess, onError);
+        return MappedPromise.biMap(this, onSuccess, onError);
     }
 
     @Override
@@ -44,15 +56,43 @@ abstract class AbstractPromise<T> implements Promise<T> {
         return new FlatMappedPromise<>(this, function);
     }
 
+    @Override
+    public final <R> Promise<R> flatmapAsync(Function<? super T, Promise<R>> function, Executor executor) {
+        Objects.requireNonNull(function);
+        Objects.requireNonNull(executor);
+
+        return AsyncStagePromise.flatmap(this, function, executor);
+    }
+
+    @Override
+    public final Promise<T> onCompleteAsync(Consumer<Try<T>> consumer, Executor executor) {
+        Objects.requireNonNull(consumer);
+        Objects.requireNonNull(executor);
+
+        AsyncStagePromise.onComplete(this, consumer, executor);
+
+        return this;
+    }
+
     @Override
     public final Promise<T> filter(Predicate<? super T> predicate) {
-        return this.flatmap(t -> {
-            if (predicate.test(t)) {
-                return PromiseHelper.success(t);
-            } else {
-                return PromiseHelper.failure(new FilterException());
-            }
-        });
+        Objects.requireNonNull(predicate);
+
+        return MappedPromise.filter(this, predicate);
+    }
+
+    @Override
+    public final Promise<T> orTimeout(Duration duration) {
+        Objects.requireNonNull(duration);
+
+        return new TimeoutPromise<>(this, TimerHelper.shared(), duration, () -> Try.failure(new TimeoutException()));
+    }
+
+    @Override
+    public final Promise<T> completeOnTimeout(T value, Duration duration) {
+        Objects.requireNonNull(duration);
+
+        return new TimeoutPromise<>(this, TimerHelper.shared(), duration, () -> Try.success(value));
     }
 
     @Override
@@ -0,0 +1,115 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise.impl;
+
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.data.Try;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Promise collecting the values of a list of promises in the input order. Each value is
+ * written in its own preallocated slot and a striped countdown detects the last completion,
+ * so no lock is involved whatever the number of promises.
+ */
+public final class AllPromise<T> extends SolvablePromise<List<T>> {
+
+    private static final Object SKIPPED = new Object();
+
+    private final Promise<T>[] promises;
+    private final Object[] slots;
+    private final boolean failFast;
+    private final StripedCountDown remaining;
+
+    /**
+     * Constructor
+     *
+     * @param promises The promises to be collected
+     * @param failFast True if the first failure fails the promise, false if failures and
+     *                 cancellations are skipped
+     */
+    @SuppressWarnings("unchecked")
+    public AllPromise(List<Promise<T>> promises, boolean failFast) {
+        this.promises = promises.toArray(Promise[]::new);
+        this.slots = new Object[this.promises.length];
+        this.failFast = failFast;
+        this.remaining = new StripedCountDown(this.promises.length);
+
+        if (this.promises.length == 0) {
+            solve(Try.success(Collections.emptyList()));
+            return;
+        }
+
+        for (final Promise<T> promise : this.promises) {
+            retain(promise);
+        }
+
+        for (int i = 0; i < this.promises.length && !getFuture().isDone(); i++) {
+            final int index = i;
+            this.promises[i].onComplete(response -> complete(index, response));
+        }
+    }
+
+    //
+    // Protected behaviors
+    //
+
+    @Override
+    protected void onCancel() {
+        Releaser.releaseAll(this.promises);
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void complete(int index, Try<T> response) {
+        if (response instanceof Try.Success<T> success) {
+            this.slots[index] = success.value();
+        } else if (this.failFast) {
+            fail(response);
+            return;
+        } else {
+            this.slots[index] = SKIPPED;
+        }
+
+        // The decrement publishes the slot written before
+        if (this.remaining.countDown()) {
+            solve(Try.success(collect()));
+        }
+    }
+
+    private void fail(Try<T> response) {
+        if (isCancellation(response)) {
+            cancel();
+        } else if (solve(Try.failure(((Try.Failure<T>) response).value()))) {
+            Releaser.releaseAll(this.promises);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> collect() {
+        if (this.failFast) {
+            return Collections.unmodifiableList(Arrays.asList((T[]) this.slots));
+        }
+
+        final List<T> values = new ArrayList<>(this.slots.length);
+
+        for (final Object slot : this.slots) {
+            if (slot != SKIPPED) {
+                values.add((T) slot);
+            }
+        }
+
+        return values;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise.impl;
+
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.data.Try;
+import org.smallibs.data.Unit;
+import org.smallibs.util.FunctionWithError;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Promise running a continuation on a given executor. The stage is submitted as a single
+ * task when the upstream promise succeeds, unless the upstream has been solved by a task
+ * of this executor: the stage is then run inline so consecutive stages bound to the same
+ * executor are not submitted again. Failures are propagated without any submission.
+ */
+final class AsyncStagePromise<T, R> extends SolvablePromise<R> {
+
+    private volatile Promise<Unit> task;
+
+    private AsyncStagePromise(Promise<T> promise, Function<? super T, Promise<R>> stage, Executor executor) {
+        super();
+
+        this.dependsOn(promise);
+
+        promise.onComplete(response -> {
+            if (isCancellation(response)) {
+                this.cancel();
+            } else {
+                response.onSuccess(s -> {
+                            if (executor.isCurrent()) {
+                                this.continueWith(stage, s);
+                            } else {
+                                // Continued within the task, so the next stages see it as the current executor,
+                                // including on a virtual thread which is not tagged while running a task
+                                this.task = executor.async(() -> {
+                                    if (!this.getFuture().isDone()) {
+                                        RunnablePromise.runOn(executor, () -> this.continueWith(stage.apply(s)));
+                                    }
+                                });
+
+                                // Cancelled while submitting
+                                if (this.getFuture().isDone()) {
+                                    this.task.cancel();
+                                }
+
+                                this.task.onFailure(f -> this.propagate(Try.failure(f)));
+                            }
+                        })
+                        .onFailure(f -> this.solve(Try.failure(f)));
+            }
+        });
+    }
+
+    static <T, R> Promise<R> map(Promise<T> promise, FunctionWithError<? super T, ? extends R> function, Executor executor) {
+        return new AsyncStagePromise<T, R>(promise, v -> SolvedPromise.of(Try.handle(() -> function.apply(v))), executor);
+    }
+
+    static <T, R> Promise<R> flatmap(Promise<T> promise, Function<? super T, Promise<R>> function, Executor executor) {
+        return new AsyncStagePromise<>(promise, function, executor);
+    }
+
+    static <T> void onComplete(Promise<T> promise, Consumer<Try<T>> consumer, Executor executor) {
+        promise.onComplete(response -> {
+            if (executor.isCurrent()) {
+                consumer.accept(response);
+            } else {
+                executor.async(() -> consumer.accept(response));
+            }
+        });
+    }
+
+    //
+    // Protected behaviors
+    //
+
+    @Override
+    protected void onCancel() {
+        final Promise<Unit> current = this.task;
+
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void continueWith(Function<? super T, Promise<R>> stage, T value) {
+        final Promise<R> next;
+
+        try {
+            next = stage.apply(value);
+        } catch (Throwable throwable) {
+            // Fails like a stage run by a task instead of escaping to the upstream callbacks
+            this.propagate(Try.failure(throwable));
+            return;
+        }
+
+        continueWith(next);
+    }
+
+    private void continueWith(Promise<R> next) {
+        this.dependsOn(next);
+        next.onComplete(this::propagate);
+    }
+}
@@ -0,0 +1,485 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise.impl;
+
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.timer.TimerHelper;
+import org.smallibs.data.Try;
+import org.smallibs.exception.FilterException;
+import org.smallibs.util.FunctionWithError;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Promise confined to an owner thread, typically an event loop. Callbacks are registered
+ * and activated by the owner only, so neither compare-and-set nor allocation of a stack
+ * node is required: registrations are appended to a plain list and the completion is a
+ * single volatile write publishing the response to the other threads. A registration or a
+ * completion done by another thread is handed off to the owner, callbacks being then
+ * activated by the owner. Derived promises are confined to the same owner and, like for
+ * solvable promises, nested completions are delivered directly up to a bounded depth,
+ * deeper ones being delivered once the outermost callback returns, so the stack depth
+ * does not depend on the length of promise chains. Threads awaiting the promise are
+ * released before the callbacks are activated.
+ * <p>
+ * Awaiting such a promise from its owner would block the only thread able to complete
+ * it: this fails with an IllegalStateException. A cancellation completes the promise
+ * but does not interrupt the owner nor propagate to the upstream. Like a completion, a
+ * cancellation done by another thread is handed off and its result is only a hint.
+ */
+public final class ConfinedPromise<T> implements Promise<T>, Future<T> {
+
+    private final Owner owner;
+
+    /**
+     * Written by the owner only
+     */
+    private volatile Try<T> response;
+
+    /**
+     * Accessed by the owner only: null, a consumer or a list of consumers
+     */
+    private Object callbacks;
+
+    /**
+     * Constructor
+     *
+     * @param owner The owner of the promise
+     */
+    public ConfinedPromise(Owner owner) {
+        Objects.requireNonNull(owner);
+
+        this.owner = owner;
+        this.response = null;
+        this.callbacks = null;
+    }
+
+    /**
+     * Solves the promise. When called by another thread than the owner the response is
+     * handed off and the result is only a hint: it tells if the promise was pending when
+     * the response has been handed off, the owner may have solved it in the meantime.
+     *
+     * @param response The response
+     * @return true if the promise has been solved or, from another thread, if it was pending
+     */
+    public boolean solve(Try<T> response) {
+        Objects.requireNonNull(response);
+
+        if (!this.owner.isCurrent()) {
+            this.owner.handoff.execute(() -> solve(response));
+            return this.response == null;
+        }
+
+        if (this.response != null) {
+            return false;
+        }
+
+        this.response = response;
+
+        if (this.callbacks != null) {
+            this.owner.deliver(this);
+        }
+
+        return true;
+    }
+
+    @Override
+    public Future<T> getFuture() {
+        return this;
+    }
+
+    @Override
+    public boolean cancel() {
+        return solve(Try.failure(new CancellationException()));
+    }
+
+    @Override
+    public T await(Duration duration) throws Throwable {
+        final Try<T> current = this.response;
+
+        if (current != null) {
+            return current.orElseThrow();
+        }
+
+        return bridge().await(duration);
+    }
+
+    @Override
+    public Promise<T> onSuccess(Consumer<T> consumer) {
+        Objects.requireNonNull(consumer);
+
+        return onComplete(response -> response.onSuccess(consumer));
+    }
+
+    @Override
+    public Promise<T> onFailure(Consumer<Throwable> consumer) {
+        Objects.requireNonNull(consumer);
+
+        return onComplete(response -> response.onFailure(consumer));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Promise<T> onComplete(Consumer<Try<T>> consumer) {
+        Objects.requireNonNull(consumer);
+
+        if (!this.owner.isCurrent()) {
+            this.owner.handoff.execute(() -> onComplete(consumer));
+        } else if (this.response != null) {
+            consumer.accept(this.response);
+        } else if (this.callbacks == null) {
+            this.callbacks = consumer;
+        } else if (this.callbacks instanceof List<?> list) {
+            ((List<Consumer<Try<T>>>) list).add(consumer);
+        } else {
+            final List<Consumer<Try<T>>> list = new ArrayList<>(4);
+            list.add((Consumer<Try<T>>) this.callbacks);
+            list.add(consumer);
+            this.callbacks = list;
+        }
+
+        return this;
+    }
+
+    @Override
+    public Promise<T> onCompleteAsync(Consumer<Try<T>> consumer, Executor executor) {
+        Objects.requireNonNull(consumer);
+        Objects.requireNonNull(executor);
+
+        AsyncStagePromise.onComplete(this, consumer, executor);
+
+        return this;
+    }
+
+    @Override
+    public Promise<T> orTimeout(Duration duration) {
+        Objects.requireNonNull(duration);
+
+        return new TimeoutPromise<>(this, TimerHelper.shared(), duration, () -> Try.failure(new TimeoutException()));
+    }
+
+    @Override
+    public Promise<T> completeOnTimeout(T value, Duration duration) {
+        Objects.requireNonNull(duration);
+
+        return new TimeoutPromise<>(this, TimerHelper.shared(), duration, () -> Try.success(value));
+    }
+
+    @Override
+    public <R> Promise<R> map(FunctionWithError<? super T, ? extends R> function) {
+        Objects.requireNonNull(function);
+
+        final ConfinedPromise<R> next = derived();
+
+        onComplete(response -> next.solve(response.fold(v -> apply(function, v), Try::failure)));
+
+        return next;
+    }
+
+    @Override
+    public <R> Promise<R> mapAsync(FunctionWithError<? super T, ? extends R> function, Executor executor) {
+        Objects.requireNonNull(function);
+        Objects.requireNonNull(executor);
+
+        return AsyncStagePromise.map(this, function, executor);
+    }
+
+    @Override
+    public <R> Promise<R> biMap(FunctionWithError<? super T, ? extends R> onSuccess, FunctionWithError<? super Throwable, ? extends R> onError) {
+        Objects.requireNonNull(onSuccess);
+        Objects.requireNonNull(onError);
+
+        final ConfinedPromise<R> next = derived();
+
+        onComplete(response -> next.solve(response.fold(v -> apply(onSuccess, v), t -> apply(onError, t))));
+
+        return next;
+    }
+
+    @Override
+    public <R> Promise<R> flatmap(Function<? super T, Promise<R>> function) {
+        Objects.requireNonNull(function);
+
+        final ConfinedPromise<R> next = derived();
+
+        onComplete(response -> {
+            if (response instanceof Try.Success<T> success) {
+                final Promise<R> promise;
+
+                try {
+                    promise = function.apply(success.value());
+                } catch (Throwable throwable) {
+                    next.solve(Try.failure(throwable));
+                    return;
+                }
+
+                promise.onComplete(next::solve);
+            } else {
+                next.solve(Try.failure(((Try.Failure<T>) response).value()));
+            }
+        });
+
+        return next;
+    }
+
+    @Override
+    public <R> Promise<R> flatmapAsync(Function<? super T, Promise<R>> function, Executor executor) {
+        Objects.requireNonNull(function);
+        Objects.requireNonNull(executor);
+
+        return AsyncStagePromise.flatmap(this, function, executor);
+    }
+
+    @Override
+    public Promise<T> filter(Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+
+        final ConfinedPromise<T> next = derived();
+
+        onComplete(response -> next.solve(response.fold(v -> test(predicate, v, response), t -> response)));
+
+        return next;
+    }
+
+    @Override
+    public Promise<T> self() {
+        return this;
+    }
+
+    //
+    // Future implementation
+    //
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return cancel();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return SolvablePromise.isCancellation(this.response);
+    }
+
+    @Override
+    public boolean isDone() {
+        return this.response != null;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        final Try<T> current = this.response;
+
+        if (current != null) {
+            return getNow(current);
+        }
+
+        return bridge().getFuture().get();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        final Try<T> current = this.response;
+
+        if (current != null) {
+            return getNow(current);
+        }
+
+        return bridge().getFuture().get(timeout, unit);
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private static <T> T getNow(Try<T> response) throws ExecutionException {
+        return response.orElseThrow(t -> t instanceof ExecutionException e ? e : new ExecutionException(t));
+    }
+
+    private <R> ConfinedPromise<R> derived() {
+        return new ConfinedPromise<>(this.owner);
+    }
+
+    /**
+     * @return a thread-safe promise solved with this one, used to wait from another thread
+     */
+    private SolvablePromise<T> bridge() {
+        if (this.owner.isCurrent()) {
+            throw new IllegalStateException("a confined promise cannot be awaited by its owner");
+        }
+
+        final SolvablePromise<T> promise = new SolvablePromise<>();
+        onComplete(new Bridge<>(promise));
+        return promise;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void notifyCallbacks() {
+        final Try<T> response = this.response;
+        final Object current = this.callbacks;
+        this.callbacks = null;
+
+        if (current instanceof List<?> list) {
+            RuntimeException failure = null;
+
+            // Awaiting threads are released first, then callbacks in registration order
+            for (final Object callback : list) {
+                if (callback instanceof Bridge<?>) {
+                    failure = activate((Consumer<Try<T>>) callback, response, failure);
+                }
+            }
+
+            for (final Object callback : list) {
+                if (!(callback instanceof Bridge<?>)) {
+                    failure = activate((Consumer<Try<T>>) callback, response, failure);
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+        } else if (current != null) {
+            ((Consumer<Try<T>>) current).accept(response);
+        }
+    }
+
+    private static <T> RuntimeException activate(Consumer<Try<T>> callback, Try<T> response, RuntimeException failure) {
+        try {
+            callback.accept(response);
+        } catch (RuntimeException e) {
+            // A failing callback must not prevent the delivery to the other ones
+            if (failure == null) {
+                return e;
+            }
+
+            failure.addSuppressed(e);
+        }
+
+        return failure;
+    }
+
+    private static <T> Try<T> test(Predicate<? super T> predicate, T value, Try<T> response) {
+        try {
+            return predicate.test(value) ? response : Try.failure(new FilterException());
+        } catch (Throwable throwable) {
+            return Try.failure(throwable);
+        }
+    }
+
+    private static <A, R> Try<R> apply(FunctionWithError<? super A, ? extends R> function, A value) {
+        try {
+            return Try.success(function.apply(value));
+        } catch (Throwable throwable) {
+            return Try.failure(throwable);
+        }
+    }
+
+    //
+    // Internal classes
+    //
+
+    /**
+     * Solves a thread-safe promise awaited by another thread
+     */
+    private record Bridge<T>(SolvablePromise<T> promise) implements Consumer<Try<T>> {
+        @Override
+        public void accept(Try<T> response) {
+            this.promise.solve(response);
+        }
+    }
+
+    /**
+     * Owner of confined promises: a thread and the way to run a task on this thread
+     */
+    public static final class Owner {
+        private static final int MAX_DEPTH = 32;
+
+        private final Thread thread;
+        private final java.util.concurrent.Executor handoff;
+        private final ArrayDeque<ConfinedPromise<?>> pending;
+        private int depth;
+
+        /**
+         * Constructor
+         *
+         * @param thread  The owner thread
+         * @param handoff The executor running a task on the owner thread
+         */
+        public Owner(Thread thread, java.util.concurrent.Executor handoff) {
+            Objects.requireNonNull(thread);
+            Objects.requireNonNull(handoff);
+
+            this.thread = thread;
+            this.handoff = handoff;
+            this.pending = new ArrayDeque<>();
+            this.depth = 0;
+        }
+
+        /**
+         * @return true if the current thread is the owner thread
+         */
+        public boolean isCurrent() {
+            return Thread.currentThread() == this.thread;
+        }
+
+        private void deliver(ConfinedPromise<?> promise) {
+            if (this.depth >= MAX_DEPTH) {
+                // Too deeply nested: delivered by the outermost completion
+                this.pending.addLast(promise);
+                return;
+            }
+
+            RuntimeException failure = null;
+            this.depth += 1;
+
+            try {
+                failure = activate(promise, failure);
+
+                if (this.depth == 1) {
+                    ConfinedPromise<?> current;
+                    while ((current = this.pending.pollFirst()) != null) {
+                        failure = activate(current, failure);
+                    }
+                }
+            } finally {
+                this.depth -= 1;
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private static RuntimeException activate(ConfinedPromise<?> promise, RuntimeException failure) {
+            try {
+                promise.notifyCallbacks();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    return e;
+                }
+
+                failure.addSuppressed(e);
+            }
+
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise.impl;
+
+import org.smallibs.concurrent.promise.Promise;
+
+/**
+ * Promise returned before its computation is started, for instance while the task waits
+ * in a queue. Once started the computation is bound: its response is propagated and a
+ * cancellation of this promise releases it.
+ */
+public final class DeferredPromise<T> extends SolvablePromise<T> {
+
+    /**
+     * Binds the started computation
+     *
+     * @param promise The promise of the computation
+     */
+    public void bind(Promise<T> promise) {
+        this.dependsOn(promise);
+        promise.onComplete(this::propagate);
+    }
+}
@@ -18,10 +18,20 @@ final class FlatMappedPromise<T, R> extends SolvablePromise<R> {
     FlatMappedPromise(Promise<T> promise, Function<? super T, Promise<R>> transform) {
         super();
 
-        promise.onComplete(response ->
-                response.onSuccess(s -> transform.apply(s).onComplete(this::solve))
-                        .onFailure(f -> this.solve(Try.failure(f)))
-        );
+        this.dependsOn(promise);
+
+        promise.onComplete(response -> {
+            if (isCancellation(response)) {
+                this.cancel();
+            } else {
+                response.onSuccess(s -> {
+                            final Promise<R> next = transform.apply(s);
+                            this.dependsOn(next);
+                            next.onComplete(this::propagate);
+                        })
+                        .onFailure(f -> this.solve(Try.failure(f)));
+            }
+        });
     }
 
 }
@@ -0,0 +1,139 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise.impl;
+
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.data.Try;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Asynchronous loop. Only the promise of the current iteration is referenced
+ * (by its callback) so the memory does not depend on the number of iterations.
+ * Iterations completed synchronously are handled by a loop and the ones completed
+ * asynchronously continue in the completing thread.
+ */
+public final class LoopPromise<T> extends SolvablePromise<T> {
+
+    private static final int PENDING = 0;
+    private static final int COMPLETED = 1;
+    private static final int ASYNCHRONOUS = 2;
+
+    private final Function<? super T, Promise<T>> step;
+    private final Predicate<? super T> done;
+    private final AtomicInteger iteration;
+    private final Consumer<Try<T>> callback;
+
+    private Try<T> response;
+
+    public LoopPromise(Function<? super T, Promise<T>> step, Predicate<? super T> done) {
+        Objects.requireNonNull(step);
+        Objects.requireNonNull(done);
+
+        this.step = step;
+        this.done = done;
+        this.iteration = new AtomicInteger(PENDING);
+        this.callback = this::resume;
+        this.response = null;
+    }
+
+    /**
+     * Starts the loop with an initial value
+     *
+     * @param seed The initial value
+     * @return the current promise
+     */
+    public LoopPromise<T> startWith(T seed) {
+        loop(Try.success(seed));
+        return this;
+    }
+
+    /**
+     * Starts the loop with the response of an initial promise
+     *
+     * @param promise The initial promise
+     * @return the current promise
+     */
+    public LoopPromise<T> startAfter(Promise<T> promise) {
+        final Try<T> synchronous = register(promise);
+
+        if (synchronous != null) {
+            loop(synchronous);
+        }
+
+        return this;
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void resume(Try<T> response) {
+        this.response = response;
+
+        if (!this.iteration.compareAndSet(PENDING, COMPLETED)) {
+            // The loop thread already returned: continue in the completing thread
+            this.response = null;
+            loop(response);
+        }
+    }
+
+    private void loop(Try<T> current) {
+        while (current != null && !getFuture().isDone()) {
+            if (current instanceof Try.Failure<T>) {
+                propagate(current);
+                return;
+            }
+
+            final T value = ((Try.Success<T>) current).value();
+
+            final Promise<T> next;
+            try {
+                if (done.test(value)) {
+                    solve(current);
+                    return;
+                }
+
+                next = step.apply(value);
+            } catch (Throwable throwable) {
+                solve(Try.failure(throwable));
+                return;
+            }
+
+            current = register(next);
+        }
+    }
+
+    /**
+     * Registers the loop on a promise.
+     *
+     * @return the response when the promise is synchronously completed or null
+     */
+    private Try<T> register(Promise<T> promise) {
+        if (promise instanceof SolvedPromise<T> solved) {
+            return solved.response();
+        }
+
+        this.dependsOn(promise);
+        this.iteration.set(PENDING);
+        promise.onComplete(this.callback);
+
+        if (this.iteration.compareAndSet(PENDING, ASYNCHRONOUS)) {
+            return null;
+        }
+
+        final Try<T> completed = this.response;
+        this.response = null;
+        return completed;
+    }
+}
@@ -10,21 +10,395 @@ package org.smallibs.concurrent.promise.impl;
 
 import org.smallibs.concurrent.promise.Promise;
 import org.smallibs.data.Try;
+import org.smallibs.exception.FilterException;
 import org.smallibs.util.FunctionWithError;
 
-final class MappedPromise<T, R> extends SolvablePromise<R> {
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
-    MappedPromise(Promise<T> promise, FunctionWithError<? super T, ? extends R> transform) {
-        super();
+/**
+ * Synchronous stage i.e. map, biMap or filter. A stage is a light node holding its
+ * functions and, once solved, its response. A stage derived from a pending stage is
+ * fused with it: instead of registering a callback on its predecessor it is appended
+ * to the chain of stages. Such a chain registers a single callback on its upstream and
+ * is then iteratively solved, each function being applied once.
+ * <p>
+ * The future of a stage is only created when the stage is observed i.e. when it is
+ * awaited, when its future is required or when a callback is registered while it is
+ * pending. Intermediate stages of a chain therefore never allocate a future.
+ */
+final class MappedPromise<T, R> extends AbstractPromise<R> {
+
+    private enum Kind {
+        MAP, BIMAP, FILTER
+    }
+
+    private static final VarHandle STATE;
+    private static final VarHandle NEXT;
+    private static final VarHandle DEPENDENTS;
+    private static final VarHandle UPSTREAM;
+    private static final Object RELEASED = new Object();
+    private static final MappedPromise<?, ?> SEALED = new MappedPromise<>(null, null, null);
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STATE = lookup.findVarHandle(MappedPromise.class, "state", Object.class);
+            NEXT = lookup.findVarHandle(MappedPromise.class, "next", MappedPromise.class);
+            DEPENDENTS = lookup.findVarHandle(MappedPromise.class, "dependents", int.class);
+            UPSTREAM = lookup.findVarHandle(MappedPromise.class, "upstream", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Kind kind;
+
+    /**
+     * The function applied to a value or the predicate for a filter
+     */
+    private final Object onSuccess;
+    private final FunctionWithError<? super Throwable, ? extends R> onError;
+
+    /**
+     * Pending: null or an Observer once observed - Completed: a Try
+     */
+    private volatile Object state;
+
+    /**
+     * The fused stage, or SEALED once this stage is completed
+     */
+    private volatile MappedPromise<R, ?> next;
+
+    /**
+     * Number of promises derived from this one and not cancelled
+     */
+    private volatile int dependents;
+
+    /**
+     * The previous stage or the promise the chain waits for, or RELEASED once completed
+     */
+    private volatile Object upstream;
+
+    private MappedPromise(Kind kind, Object onSuccess, FunctionWithError<? super Throwable, ? extends R> onError) {
+        this.kind = kind;
+        this.onSuccess = onSuccess;
+        this.onError = onError;
+        this.state = null;
+        this.next = null;
+        this.dependents = 0;
+        this.upstream = null;
+    }
+
+    static <T, R> Promise<R> map(Promise<T> promise, FunctionWithError<? super T, ? extends R> transform) {
+        return stage(promise, new MappedPromise<T, R>(Kind.MAP, transform, null));
+    }
+
+    static <T, R> Promise<R> biMap(Promise<T> promise, FunctionWithError<? super T, ? extends R> onSuccess, FunctionWithError<? super Throwable, ? extends R> onError) {
+        return stage(promise, new MappedPromise<T, R>(Kind.BIMAP, onSuccess, onError));
+    }
+
+    static <T> Promise<T> filter(Promise<T> promise, Predicate<? super T> predicate) {
+        return stage(promise, new MappedPromise<T, T>(Kind.FILTER, predicate, null));
+    }
+
+    @Override
+    public Future<R> getFuture() {
+        return observer().getFuture();
+    }
+
+    @Override
+    public boolean cancel() {
+        for (; ; ) {
+            final Object current = this.state;
+
+            if (current instanceof Observer<?> observer) {
+                // The observer hook cancels the stage
+                return observer.cancel();
+            }
+
+            if (current != null) {
+                return false;
+            }
+
+            if (STATE.compareAndSet(this, null, Try.failure(new CancellationException()))) {
+                cancelled();
+                return true;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public R await(Duration duration) throws Throwable {
+        final Object current = this.state;
+
+        if (current instanceof Try<?> response) {
+            return ((Try<R>) response).orElseThrow();
+        }
+
+        SolvablePromise.help(this.upstream);
+
+        return observer().await(duration);
+    }
+
+    @Override
+    public Promise<R> onSuccess(Consumer<R> consumer) {
+        Objects.requireNonNull(consumer);
+
+        return onComplete(response -> response.onSuccess(consumer));
+    }
+
+    @Override
+    public Promise<R> onFailure(Consumer<Throwable> consumer) {
+        Objects.requireNonNull(consumer);
+
+        return onComplete(response -> response.onFailure(consumer));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Promise<R> onComplete(Consumer<Try<R>> consumer) {
+        Objects.requireNonNull(consumer);
+
+        final Object current = this.state;
+
+        if (current instanceof Try<?> response) {
+            consumer.accept((Try<R>) response);
+        } else {
+            observer().onComplete(consumer);
+        }
+
+        return this;
+    }
+
+    //
+    // Protected behaviors
+    //
+
+    Object upstream() {
+        return this.upstream;
+    }
+
+    void retain() {
+        DEPENDENTS.getAndAdd(this, 1);
+    }
 
-        promise.onComplete(c ->
-                solve(c.flatmap(v -> {
+    /**
+     * Releases a dependent: the stage is cancelled if it was the last one.
+     *
+     * @return the upstream to release when the stage has been released, null otherwise
+     */
+    Object release() {
+        if ((int) DEPENDENTS.getAndAdd(this, -1) != 1) {
+            return null;
+        }
+
+        // Detached first: the cancellation hook does not release it recursively
+        final Object previous = UPSTREAM.getAndSet(this, RELEASED);
+        cancel();
+        return previous;
+    }
+
+    //
+    // Private behaviors
+    //
+
+    @SuppressWarnings("unchecked")
+    private static <T, R> Promise<R> stage(Promise<T> promise, MappedPromise<T, R> stage) {
+        SolvablePromise.retain(promise);
+        stage.upstream = promise;
+
+        if (!(promise instanceof MappedPromise<?, ?> previous && ((MappedPromise<?, T>) previous).fuse(stage))) {
+            promise.onComplete(stage::solveChain);
+        }
+
+        return stage;
+    }
+
+    private boolean fuse(MappedPromise<R, ?> stage) {
+        return NEXT.compareAndSet(this, null, stage);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void solveChain(Try<T> response) {
+        RuntimeException failure = null;
+        MappedPromise current = this;
+        Try input = response;
+
+        while (current != null && current != SEALED) {
+            try {
+                final Try cancelled = current.response();
+
+                // A cancelled stage keeps its response and its function is not applied, like
+                // for an unfused stage
+                if (cancelled != null) {
+                    input = cancelled;
+                } else {
+                    // The stage may be cancelled meanwhile hence the effective response
+                    input = current.complete(SolvablePromise.isCancellation(input) ? input : current.apply(input));
+                }
+            } catch (RuntimeException e) {
+                // Failing callbacks must not prevent the chain propagation
+                input = current.response();
+
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+
+            // Seal the stage; a stage appended later is then registered as a regular callback
+            current = (MappedPromise) NEXT.getAndSet(current, SEALED);
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return the effective response of the stage
+     */
+    @SuppressWarnings("unchecked")
+    private Try<R> complete(Try<R> response) {
+        this.upstream = RELEASED;
+
+        for (; ; ) {
+            final Object current = this.state;
+
+            if (current instanceof Observer<?> observer) {
+                ((Observer<R>) observer).propagate(response);
+                return ((Observer<R>) observer).response();
+            }
+
+            if (current != null) {
+                return (Try<R>) current;
+            }
+
+            if (STATE.compareAndSet(this, null, response)) {
+                return response;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Try<R> response() {
+        final Object current = this.state;
+
+        if (current instanceof Observer<?> observer) {
+            return ((Observer<R>) observer).response();
+        }
+
+        return (Try<R>) current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Try<R> apply(Try<T> response) {
+        if (response instanceof Try.Success<T> success) {
+            return switch (this.kind) {
+                case MAP, BIMAP -> apply((FunctionWithError<? super T, ? extends R>) this.onSuccess, success.value());
+                case FILTER -> {
                     try {
-                        return Try.success(transform.apply(v));
+                        yield ((Predicate<? super T>) this.onSuccess).test(success.value())
+                                ? (Try<R>) response
+                                : Try.failure(new FilterException());
                     } catch (Throwable throwable) {
-                        return Try.failure(throwable);
+                        yield Try.failure(throwable);
                     }
-                }))
-        );
+                }
+            };
+        }
+
+        if (this.kind == Kind.BIMAP) {
+            return apply(this.onError, ((Try.Failure<T>) response).value());
+        }
+
+        return (Try<R>) response;
+    }
+
+    /**
+     * @return the promise observed on behalf of this stage, created once
+     */
+    @SuppressWarnings("unchecked")
+    private SolvablePromise<R> observer() {
+        for (; ; ) {
+            final Object current = this.state;
+
+            if (current instanceof Observer<?> observer) {
+                return (Observer<R>) observer;
+            }
+
+            final Observer<R> observer = new Observer<>(this);
+
+            if (current != null) {
+                observer.propagate((Try<R>) current);
+            }
+
+            if (STATE.compareAndSet(this, current, observer)) {
+                return observer;
+            }
+        }
+    }
+
+    /**
+     * Releases the upstream then cancels the fused stages iteratively: each one is
+     * detached before being cancelled.
+     */
+    private void cancelled() {
+        if (UPSTREAM.getAndSet(this, RELEASED) instanceof Promise<?> promise) {
+            SolvablePromise.release(promise);
+        }
+
+        MappedPromise<?, ?> following = detach(this);
+
+        while (following != null) {
+            final MappedPromise<?, ?> after = detach(following);
+            following.cancel();
+            following = after;
+        }
+    }
+
+    private static MappedPromise<?, ?> detach(MappedPromise<?, ?> stage) {
+        final MappedPromise<?, ?> following = (MappedPromise<?, ?>) NEXT.getAndSet(stage, SEALED);
+        return following == SEALED ? null : following;
+    }
+
+    private static <A, R> Try<R> apply(FunctionWithError<? super A, ? extends R> function, A value) {
+        try {
+            return Try.success(function.apply(value));
+        } catch (Throwable throwable) {
+            return Try.failure(throwable);
+        }
+    }
+
+    //
+    // Internal classes
+    //
+
+    /**
+     * Promise created when a stage is observed: its cancellation cancels the stage
+     */
+    private static final class Observer<R> extends SolvablePromise<R> {
+        private final MappedPromise<?, R> stage;
+
+        private Observer(MappedPromise<?, R> stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        protected void onCancel() {
+            // Not done while the observer is created for a completed stage
+            if (this.stage.state == this) {
+                this.stage.cancelled();
+            }
+        }
     }
 }
@@ -13,20 +13,24 @@ import org.smallibs.data.Try;
 import org.smallibs.data.Unit;
 import org.smallibs.exception.NoValueException;
 
-import java.util.Arrays;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
+/**
+ * Fan-in of a set of promises. A single listener is shared by all inputs and completions
+ * are counted by a striped countdown. On early stop the inputs are released by batches.
+ */
 public class PromisesSet extends SolvablePromise<Unit> {
 
     private final Strategy strategy;
     private final Promise<?>[] promises;
-    private final AtomicInteger activePromises;
+    private final StripedCountDown activePromises;
 
+    @SuppressWarnings("unchecked")
     public PromisesSet(Strategy strategy, Promise... promises) {
 
         this.strategy = strategy;
         this.promises = promises;
-        this.activePromises = new AtomicInteger(this.promises.length);
+        this.activePromises = new StripedCountDown(this.promises.length);
 
         if (this.promises.length == 0) {
             switch (strategy) {
@@ -43,55 +47,67 @@ public class PromisesSet extends SolvablePromise<Unit> {
             return;
         }
 
-        Arrays.asList(this.promises).forEach(promise -> {
-            promise.onSuccess(t -> {
-                activePromises.decrementAndGet();
-                manageSuccess();
-            });
-            promise.onFailure(e -> {
-                activePromises.decrementAndGet();
-                manageError(e);
-            });
-        });
+        for (final Promise<?> promise : this.promises) {
+            retain(promise);
+        }
+
+        final Consumer<Try<Object>> listener = this::manageResponse;
+
+        for (int i = 0; i < this.promises.length && !getFuture().isDone(); i++) {
+            ((Promise<Object>) this.promises[i]).onComplete(listener);
+        }
+    }
+
+    @Override
+    protected void onCancel() {
+        Releaser.releaseAll(promises);
+    }
+
+    //
+    // Private behaviors
+    //
 
+    private void manageResponse(Try<Object> response) {
+        if (response instanceof Try.Failure<Object> failure) {
+            manageError(failure.value());
+        } else {
+            manageSuccess();
+        }
     }
 
     private void manageSuccess() {
         if (strategy == Strategy.STOP_ON_SUCCESS) {
+            stop(Try.success(Unit.unit));
+        } else if (activePromises.countDown()) {
             solve(Try.success(Unit.unit));
-
-            Arrays.asList(promises).forEach(promise -> {
-                promise.getFuture().cancel(true);
-            });
-        } else {
-            if (activePromises.get() == 0) {
-                solve(Try.success(Unit.unit));
-            }
         }
     }
 
     private void manageError(Throwable t) {
         switch (strategy) {
             case STOP_ON_ERROR:
-                solve(Try.failure(t));
-
-                Arrays.asList(promises).forEach(promise -> {
-                    promise.getFuture().cancel(true);
-                });
+                stop(Try.failure(t));
                 break;
             case STOP_ON_SUCCESS:
-                if (activePromises.get() == 0) {
+                if (activePromises.countDown()) {
                     solve(Try.failure(t));
                 }
                 break;
             default:
-                if (activePromises.get() == 0) {
+                if (activePromises.countDown()) {
                     solve(Try.success(Unit.unit));
                 }
                 break;
         }
     }
 
+    private void stop(Try<Unit> response) {
+        // Only the first early stop releases the remaining promises
+        if (solve(response)) {
+            Releaser.releaseAll(promises);
+        }
+    }
+
     public enum Strategy {
         NO_STOP,
         STOP_ON_ERROR,
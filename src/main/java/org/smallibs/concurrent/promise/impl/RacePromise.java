@@ -0,0 +1,105 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise.impl;
+
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.data.Try;
+import org.smallibs.exception.NoValueException;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Promise solved by the first completed promise, or by the first successful one. A single
+ * listener is shared by all inputs and the losers are released once the winner is known.
+ */
+public final class RacePromise<T> extends SolvablePromise<T> {
+
+    private final Promise<?>[] promises;
+    private final boolean successOnly;
+    private final StripedCountDown remaining;
+    private final Queue<Throwable> failures;
+
+    /**
+     * Constructor
+     *
+     * @param successOnly True if only a success wins, false if any completion wins
+     * @param promises    The competing promises
+     */
+    public RacePromise(boolean successOnly, List<Promise<T>> promises) {
+        this.promises = promises.toArray(new Promise<?>[0]);
+        this.successOnly = successOnly;
+        this.remaining = new StripedCountDown(this.promises.length);
+        this.failures = successOnly ? new ConcurrentLinkedQueue<>() : null;
+
+        if (this.promises.length == 0) {
+            solve(Try.failure(new NoValueException()));
+            return;
+        }
+
+        for (final Promise<T> promise : promises) {
+            retain(promise);
+        }
+
+        final Consumer<Try<T>> listener = this::complete;
+
+        for (int i = 0; i < promises.size() && !getFuture().isDone(); i++) {
+            promises.get(i).onComplete(listener);
+        }
+    }
+
+    //
+    // Protected behaviors
+    //
+
+    @Override
+    protected void onCancel() {
+        Releaser.releaseAll(this.promises);
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void complete(Try<T> response) {
+        if (getFuture().isDone()) {
+            return;
+        }
+
+        if (!this.successOnly || response instanceof Try.Success<T>) {
+            win(response);
+        } else {
+            this.failures.add(((Try.Failure<T>) response).value());
+
+            if (this.remaining.countDown()) {
+                solve(Try.failure(aggregate()));
+            }
+        }
+    }
+
+    private void win(Try<T> response) {
+        if (isCancellation(response)) {
+            cancel();
+        } else if (solve(response)) {
+            Releaser.releaseAll(this.promises);
+        }
+    }
+
+    private NoValueException aggregate() {
+        final NoValueException exception = new NoValueException();
+
+        for (final Throwable failure : this.failures) {
+            exception.addSuppressed(failure);
+        }
+
+        return exception;
+    }
+}
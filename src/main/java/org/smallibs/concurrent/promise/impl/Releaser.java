@@ -0,0 +1,48 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise.impl;
+
+import org.smallibs.concurrent.promise.Promise;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Releases a set of promises by batches. The first batch is released by the calling
+ * thread and the next ones asynchronously, one batch per task, so an early stop never
+ * delays the completing thread by more than a batch whatever the number of promises.
+ */
+final class Releaser implements Runnable {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private final Promise<?>[] promises;
+    private int index;
+
+    private Releaser(Promise<?>[] promises) {
+        this.promises = promises;
+        this.index = 0;
+    }
+
+    static void releaseAll(Promise<?>[] promises) {
+        new Releaser(promises).run();
+    }
+
+    @Override
+    public void run() {
+        final int end = Math.min(this.promises.length, this.index + BATCH_SIZE);
+
+        for (; this.index < end; this.index++) {
+            SolvablePromise.release(this.promises[this.index]);
+        }
+
+        if (this.index < this.promises.length) {
+            ForkJoinPool.commonPool().execute(this);
+        }
+    }
+}
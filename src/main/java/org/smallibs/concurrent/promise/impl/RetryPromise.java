@@ -0,0 +1,124 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise.impl;
+
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.RetryPolicy;
+import org.smallibs.concurrent.timer.Timer;
+import org.smallibs.data.Try;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Promise retrying an action with a backoff. Waits are scheduled on a timer so no thread
+ * is held between attempts, and only the current attempt is referenced so the memory does
+ * not depend on the number of attempts. When a wait expires the next attempt is submitted
+ * to an executor, hence it never runs on the timer thread and the stack does not grow either.
+ */
+public final class RetryPromise<T> extends SolvablePromise<T> {
+
+    private final Supplier<Promise<T>> action;
+    private final RetryPolicy policy;
+    private final Timer timer;
+    private final Executor executor;
+    private final Consumer<Try<T>> callback;
+
+    private volatile Timer.Timeout timeout;
+    private int attempts;
+
+    public RetryPromise(Supplier<Promise<T>> action, RetryPolicy policy, Timer timer, Executor executor) {
+        Objects.requireNonNull(action);
+        Objects.requireNonNull(policy);
+        Objects.requireNonNull(timer);
+        Objects.requireNonNull(executor);
+
+        this.action = action;
+        this.policy = policy;
+        this.timer = timer;
+        this.executor = executor;
+        this.callback = this::complete;
+        this.timeout = null;
+        this.attempts = 0;
+    }
+
+    /**
+     * Starts the first attempt
+     *
+     * @return the current promise
+     */
+    public RetryPromise<T> start() {
+        attempt();
+        return this;
+    }
+
+    //
+    // Protected behaviors
+    //
+
+    @Override
+    protected void onCancel() {
+        final Timer.Timeout current = this.timeout;
+
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void attempt() {
+        if (getFuture().isDone()) {
+            return;
+        }
+
+        this.attempts += 1;
+
+        final Promise<T> promise;
+
+        try {
+            promise = this.action.get();
+        } catch (Throwable throwable) {
+            complete(Try.failure(throwable));
+            return;
+        }
+
+        this.dependsOn(promise);
+        promise.onComplete(this.callback);
+    }
+
+    private void complete(Try<T> response) {
+        if (response instanceof Try.Failure<T> && !isCancellation(response) && retry(response)) {
+            this.timeout = this.timer.schedule(this::attempt, this.policy.delay(this.attempts), this.executor);
+
+            // Cancelled while scheduling
+            if (getFuture().isDone()) {
+                this.timeout.cancel();
+            }
+        } else {
+            propagate(response);
+        }
+    }
+
+    private boolean retry(Try<T> response) {
+        if (this.attempts >= this.policy.maxAttempts()) {
+            return false;
+        }
+
+        try {
+            return this.policy.retryOn().test(response);
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+}
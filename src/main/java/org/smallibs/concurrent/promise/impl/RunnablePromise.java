@@ -8,54 +8,208 @@
 
 package org.smallibs.concurrent.promise.impl;
 
-import org.smallibs.data.Maybe;
+import org.smallibs.concurrent.execution.Executor;
 import org.smallibs.data.Try;
 
-import java.lang.ref.WeakReference;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Objects;
 import java.util.concurrent.Callable;
-import java.util.function.Consumer;
 
 public final class RunnablePromise<T> extends SolvablePromise<T> implements Runnable {
 
+    private static final VarHandle RUNNER;
+    private static final Object INTERRUPTING = new Object();
+    private static final Object INTERRUPTED = new Object();
+    private static final ThreadLocal<Executor> CURRENT = new ThreadLocal<>();
+
+    static {
+        try {
+            RUNNER = MethodHandles.lookup().findVarHandle(RunnablePromise.class, "runner", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final Callable<T> callable;
 
-    private WeakReference<Thread> currentExecutor;
+    /**
+     * The executor running this task, null if unknown
+     */
+    private final Executor owner;
+
+    /**
+     * The running thread, null when not running or a marker when interrupted
+     */
+    private volatile Object runner;
 
     public RunnablePromise(Callable<T> callable) {
+        this(callable, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param callable The task
+     * @param owner    The executor running the task. An await done by one of its tasks
+     *                 runs this task inline when it has not been started yet.
+     */
+    public RunnablePromise(Callable<T> callable, Executor owner) {
         Objects.requireNonNull(callable);
-        this.currentExecutor = new WeakReference<>(null);
         this.callable = callable;
+        this.owner = owner;
+        this.runner = null;
     }
 
     @Override
     public void run() {
-        this.currentExecutor = new WeakReference<>(Thread.currentThread());
+        final Thread thread = Thread.currentThread();
+
+        // A cancelled task is dropped before being started
+        if (getFuture().isDone() || !RUNNER.compareAndSet(this, null, thread)) {
+            return;
+        }
 
         try {
-            solve(Try.success(this.callable.call()));
-        } catch (final Throwable exception) {
-            solve(Try.failure(exception));
+            if (thread.isVirtual()) {
+                runOnVirtualThread();
+            } else {
+                final Executor previous = enter(this.owner);
+
+                try {
+                    complete(call());
+                } finally {
+                    leave(this.owner, previous);
+                }
+            }
+        } finally {
+            if (!RUNNER.compareAndSet(this, thread, null)) {
+                // Interrupted by a cancellation: wait for it and clear the interruption
+                while (this.runner == INTERRUPTING) {
+                    Thread.onSpinWait();
+                }
+
+                Thread.interrupted();
+            }
         }
+    }
 
-        this.currentExecutor.clear();
+    /**
+     * @return the executor owning the task run by the current thread, null if none
+     */
+    public static Executor currentOwner() {
+        return CURRENT.get();
     }
 
     //
     // Protected behaviors
     //
 
+    /**
+     * Runs the task in the current thread if it has not been started yet and if the current
+     * thread runs a task of the same executor, then no thread of this executor waits for a
+     * task queued behind it. A virtual thread is not seen as running a task of its executor
+     * while it runs the task, so an await done by the task does not run the awaited task
+     * inline there: parking a virtual thread does not starve any pool.
+     *
+     * @throws IllegalStateException if the task is run by the current thread
+     */
+    void help() {
+        final Object current = this.runner;
+
+        if (current == Thread.currentThread()) {
+            throw new IllegalStateException("a task cannot await its own completion");
+        }
+
+        if (current == null && this.owner != null && this.owner.isCurrent()) {
+            run();
+        }
+    }
+
+    /**
+     * Runs an action seen as run by a task of the given executor
+     *
+     * @param owner  The executor
+     * @param action The action
+     */
+    static void runOn(Executor owner, Runnable action) {
+        final Executor previous = enter(owner);
+
+        try {
+            action.run();
+        } finally {
+            leave(owner, previous);
+        }
+    }
+
     @Override
-    protected SolvableFuture<T> createFuture(Consumer<Try<T>> callbackOnComplete) {
-        return new SolvableFuture<>(callbackOnComplete) {
-            @Override
-            public boolean cancel(boolean mayInterruptIfRunning) {
-                if (mayInterruptIfRunning) {
-                    Maybe.some(currentExecutor.get()).onSome(Thread::interrupt);
-                }
+    protected void onCancel() {
+        if (this.runner instanceof Thread thread && RUNNER.compareAndSet(this, thread, INTERRUPTING)) {
+            try {
+                thread.interrupt();
+            } finally {
+                this.runner = INTERRUPTED;
+            }
+        }
+    }
+
+    //
+    // Private behaviors
+    //
+
+    /**
+     * A thread local costs a map per virtual thread, and virtual threads are not pooled,
+     * so a virtual thread is only tagged while the response is delivered to continuations.
+     */
+    private void runOnVirtualThread() {
+        final Try<T> response = call();
+
+        if (this.owner == null || !isObserved()) {
+            complete(response);
+            return;
+        }
+
+        runOn(this.owner, () -> complete(response));
+    }
+
+    /**
+     * @return the response of the task or null if it has been cancelled before
+     */
+    private Try<T> call() {
+        if (getFuture().isDone()) {
+            return null;
+        }
 
-                return super.cancel(mayInterruptIfRunning);
+        try {
+            return Try.success(this.callable.call());
+        } catch (final Throwable exception) {
+            return Try.failure(exception);
+        }
+    }
+
+    private void complete(Try<T> response) {
+        if (response != null) {
+            try {
+                solve(response);
+            } catch (final Throwable exception) {
+                solve(Try.failure(exception));
             }
-        };
+        }
+    }
+
+    private static Executor enter(Executor owner) {
+        final Executor previous = CURRENT.get();
+
+        if (owner != previous) {
+            CURRENT.set(owner);
+        }
+
+        return previous;
+    }
+
+    private static void leave(Executor owner, Executor previous) {
+        if (owner != previous) {
+            CURRENT.set(previous);
+        }
     }
 }
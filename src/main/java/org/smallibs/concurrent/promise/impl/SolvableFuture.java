@@ -10,74 +10,93 @@ package org.smallibs.concurrent.promise.impl;
 
 import org.smallibs.data.Try;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
+/**
+ * Lock-free future. The whole state is held by a single field which is either
+ * a stack of pending callbacks (null when empty), a response or a cancellation.
+ * Transitions are only done using compare-and-set operations.
+ * <p>
+ * The response is published before any callback is activated and callbacks are
+ * never activated while holding a lock. A slow callback therefore never delays
+ * registrations, awaits or cancellations done by other threads.
+ * <p>
+ * Completions triggered by a callback are delivered directly up to a bounded nesting
+ * depth. Deeper ones are queued by the completing thread and delivered once the outermost
+ * callback returns, so the stack depth does not depend on the length of promise chains.
+ * <p>
+ * Blocking operations register a waiter node and park the calling thread. No monitor is
+ * used so an awaiting virtual thread never pins its carrier thread. Like callbacks, waiters
+ * are unparked in registration order: callbacks registered before an await are activated
+ * when it returns. Waiters and the cancellation hook are never deferred though, even when
+ * the callbacks are. A waiter which times out or is interrupted is removed from the stack.
+ * On a fork join worker the thread is parked by a managed blocker so the pool can activate
+ * a spare worker in the meantime.
+ */
 public class SolvableFuture<T> implements Future<T> {
 
-    private enum Status {
-        WAITING, SOLVED, CANCELLED
+    private static final VarHandle STATE;
+    private static final int MAX_DEPTH = 32;
+    private static final ThreadLocal<Trampoline> TRAMPOLINE = new ThreadLocal<>();
+    /**
+     * Number of threads having queued deliveries
+     */
+    private static final AtomicInteger DEFERRING = new AtomicInteger(0);
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(SolvableFuture.class, "state", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
     }
 
-    private final AtomicReference<Try<T>> responseReference;
-    private final Consumer<Try<T>> callbackOnComplete;
-    private final AtomicReference<Status> status;
+    /**
+     * Pending: null or a Callback stack - Completed: a Try - Cancelled: a Cancelled
+     */
+    private volatile Object state;
 
-    public SolvableFuture(Consumer<Try<T>> callbackOnComplete) {
-        this.callbackOnComplete = callbackOnComplete;
-        this.responseReference = new AtomicReference<>();
-        this.status = new AtomicReference<>(Status.WAITING);
+    public SolvableFuture() {
+        this.state = null;
     }
 
     @Override
     public boolean cancel(boolean mayInterruptIfRunning) {
-        synchronized (this) {
-            final boolean isCancelled = this.status.compareAndSet(Status.WAITING, Status.CANCELLED);
-
-            if (isCancelled) {
-                this.responseReference.set(Try.failure(new CancellationException()));
-            }
-
-            return isCancelled;
-        }
+        return complete(new Cancelled<>(Try.failure(new CancellationException())));
     }
 
     @Override
     public boolean isCancelled() {
-        return this.status.get() == Status.CANCELLED;
+        return this.state instanceof Cancelled;
     }
 
     @Override
     public boolean isDone() {
-        return this.status.get() == Status.SOLVED;
+        return isCompleted(this.state);
     }
 
     @Override
     public T get() throws InterruptedException, ExecutionException {
-        synchronized (this) {
-            if (this.status.get() == Status.WAITING) {
-                this.wait();
-            }
-        }
+        awaitDone(false, 0L);
 
         return getNow();
     }
 
     @Override
     public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        synchronized (this) {
-            if (this.status.get() == Status.WAITING) {
-                this.wait(unit.toMillis(timeout));
-            }
-
-            if (this.status.get() == Status.WAITING) {
-                throw new TimeoutException();
-            }
+        if (!awaitDone(true, unit.toNanos(timeout))) {
+            throw new TimeoutException();
         }
 
         return getNow();
@@ -88,24 +107,203 @@ public class SolvableFuture<T> implements Future<T> {
     //
 
     boolean solve(Try<T> response) {
-        synchronized (this) {
-            if (this.status.compareAndSet(SolvableFuture.Status.WAITING, SolvableFuture.Status.SOLVED)) {
-                this.responseReference.set(response);
-                this.callbackOnComplete.accept(response);
-                this.notifyAll();
-                return true;
-            } else {
-                return false;
+        return complete(response);
+    }
+
+    /**
+     * Registers a callback activated once the future is completed. If the future
+     * is already completed the callback is immediately activated.
+     *
+     * @param callback The callback
+     */
+    @SuppressWarnings("unchecked")
+    void register(Consumer<Try<T>> callback) {
+        final Callback<T> node = new Callback<>(callback);
+
+        for (; ; ) {
+            final Object current = this.state;
+
+            if (isCompleted(current)) {
+                callback.accept(responseOf(current));
+                return;
+            }
+
+            node.next = (Callback<T>) current;
+
+            if (STATE.compareAndSet(this, current, node)) {
+                return;
             }
         }
     }
 
+    Try<T> response() {
+        final Object current = this.state;
+        return isCompleted(current) ? responseOf(current) : null;
+    }
+
+    boolean hasCallbacks() {
+        return this.state instanceof Callback;
+    }
+
+    /**
+     * Hook activated once when the future is cancelled, before the callbacks
+     */
+    protected void onCancel() {
+        // Nothing by default
+    }
+
     //
     // Private behaviors
     //
 
+    @SuppressWarnings("unchecked")
+    private boolean complete(Object completion) {
+        for (; ; ) {
+            final Object current = this.state;
+
+            if (isCompleted(current)) {
+                return false;
+            }
+
+            if (STATE.compareAndSet(this, current, completion)) {
+                RuntimeException failure = null;
+
+                if (completion instanceof Cancelled) {
+                    try {
+                        onCancel();
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    }
+                }
+
+                notifyCallbacks((Callback<T>) current, responseOf(completion), failure);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Parks the current thread until the future is completed
+     *
+     * @return true if the future is completed, false if the timeout elapsed
+     */
+    private boolean awaitDone(boolean timed, long nanos) throws InterruptedException {
+        if (isDone()) {
+            return true;
+        }
+
+        helpDeferred();
+
+        if (isDone()) {
+            return true;
+        }
+
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        final Waiter<T> waiter = new Waiter<>(Thread.currentThread());
+
+        register(waiter);
+
+        try {
+            final Blocker blocker = new Blocker(timed, deadline);
+
+            if (Thread.currentThread() instanceof ForkJoinWorkerThread) {
+                ForkJoinPool.managedBlock(blocker);
+            } else {
+                while (!blocker.block()) {
+                    // Spurious wake up
+                }
+            }
+
+            return isDone();
+        } finally {
+            waiter.thread = null;
+
+            // Timed out or interrupted: the dead node must not stay in the stack
+            if (!isDone()) {
+                removeWaiters();
+            }
+        }
+    }
+
+    /**
+     * Removes the waiters whose thread is released. Nodes of a pending stack are never
+     * modified, since the completion reverses them: the live nodes above the last removed
+     * one are copied and the stack is replaced, its remaining part being shared.
+     */
+    @SuppressWarnings("unchecked")
+    private void removeWaiters() {
+        for (; ; ) {
+            final Object current = this.state;
+
+            if (!(current instanceof Callback)) {
+                return;
+            }
+
+            final Callback<T> stack = (Callback<T>) current;
+            Callback<T> lastDead = null;
+
+            for (Callback<T> node = stack; node != null; node = node.next) {
+                if (this.state != current) {
+                    // Completed: the nodes may be reversed
+                    break;
+                }
+
+                if (isDead(node)) {
+                    lastDead = node;
+                }
+            }
+
+            if (this.state != current) {
+                continue;
+            }
+
+            if (lastDead == null) {
+                return;
+            }
+
+            Callback<T> head = null;
+            Callback<T> tail = null;
+
+            for (Callback<T> node = stack; node != lastDead; node = node.next) {
+                if (this.state != current) {
+                    break;
+                }
+
+                if (!isDead(node)) {
+                    final Callback<T> copy = new Callback<>(node.callback);
+
+                    if (tail == null) {
+                        head = copy;
+                    } else {
+                        tail.next = copy;
+                    }
+
+                    tail = copy;
+                }
+            }
+
+            if (this.state != current) {
+                continue;
+            }
+
+            if (tail == null) {
+                head = lastDead.next;
+            } else {
+                tail.next = lastDead.next;
+            }
+
+            if (STATE.compareAndSet(this, current, head)) {
+                return;
+            }
+        }
+    }
+
+    private static <T> boolean isDead(Callback<T> node) {
+        return node.callback instanceof Waiter<T> waiter && waiter.thread == null;
+    }
+
     private T getNow() throws ExecutionException {
-        return responseReference.get().orElseThrow(t -> {
+        return SolvableFuture.<T>responseOf(this.state).orElseThrow(t -> {
             if (t instanceof ExecutionException) {
                 return (ExecutionException) t;
             } else {
@@ -113,4 +311,277 @@ public class SolvableFuture<T> implements Future<T> {
             }
         });
     }
+
+    private static <T> void notifyCallbacks(Callback<T> stack, Try<T> response, RuntimeException failure) {
+        if (stack != null) {
+            // Callbacks are stacked; reverse them in order to respect the registration order
+            Callback<T> ordered = null;
+
+            while (stack != null) {
+                final Callback<T> next = stack.next;
+                stack.next = ordered;
+                ordered = stack;
+                stack = next;
+            }
+
+            failure = deliver(ordered, response, failure);
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static <T> RuntimeException deliver(Callback<T> ordered, Try<T> response, RuntimeException failure) {
+        Trampoline trampoline = TRAMPOLINE.get();
+
+        if (trampoline == null) {
+            trampoline = new Trampoline();
+            TRAMPOLINE.set(trampoline);
+        }
+
+        if (trampoline.depth >= MAX_DEPTH) {
+            // Too deeply nested: waiters are released now and callbacks are delivered by the
+            // outermost completion keeping the stack bounded
+            final Callback<T> callbacks = unparkWaiters(ordered, response);
+
+            if (callbacks != null) {
+                trampoline.add(new Delivery<>(callbacks, response));
+            }
+
+            return failure;
+        }
+
+        trampoline.depth += 1;
+
+        try {
+            failure = activate(ordered, response, failure);
+
+            if (trampoline.depth == 1) {
+                Delivery<?> delivery;
+                while ((delivery = trampoline.poll()) != null) {
+                    failure = activate(delivery, failure);
+                }
+
+                failure = suppress(failure, trampoline.takeFailure());
+            }
+        } finally {
+            trampoline.depth -= 1;
+        }
+
+        return failure;
+    }
+
+    /**
+     * @return the callbacks which are not waiters
+     */
+    private static <T> Callback<T> unparkWaiters(Callback<T> ordered, Try<T> response) {
+        Callback<T> head = null;
+        Callback<T> tail = null;
+
+        for (; ordered != null; ordered = ordered.next) {
+            if (ordered.callback instanceof Waiter<T> waiter) {
+                waiter.accept(response);
+            } else if (tail == null) {
+                head = tail = ordered;
+            } else {
+                tail.next = ordered;
+                tail = ordered;
+            }
+        }
+
+        if (tail != null) {
+            tail.next = null;
+        }
+
+        return head;
+    }
+
+    /**
+     * Delivers the completions deferred by the current thread before it parks: it may
+     * otherwise wait for one of them.
+     */
+    private void helpDeferred() {
+        if (DEFERRING.get() == 0) {
+            return;
+        }
+
+        final Trampoline trampoline = TRAMPOLINE.get();
+
+        if (trampoline == null) {
+            return;
+        }
+
+        Delivery<?> delivery;
+        while (!isDone() && (delivery = trampoline.poll()) != null) {
+            // Failures are reported by the outermost completion
+            trampoline.failure = activate(delivery, trampoline.failure);
+        }
+    }
+
+    private static <T> RuntimeException activate(Delivery<T> delivery, RuntimeException failure) {
+        return activate(delivery.callbacks, delivery.response, failure);
+    }
+
+    private static <T> RuntimeException activate(Callback<T> ordered, Try<T> response, RuntimeException failure) {
+        for (; ordered != null; ordered = ordered.next) {
+            try {
+                ordered.callback.accept(response);
+            } catch (RuntimeException e) {
+                // A failing callback must not prevent the delivery to the other ones
+                failure = suppress(failure, e);
+            }
+        }
+
+        return failure;
+    }
+
+    private static RuntimeException suppress(RuntimeException failure, RuntimeException e) {
+        if (e == null) {
+            return failure;
+        }
+
+        if (failure == null) {
+            return e;
+        }
+
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    private static boolean isCompleted(Object state) {
+        return state != null && !(state instanceof Callback);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Try<T> responseOf(Object state) {
+        if (state instanceof Cancelled) {
+            return ((Cancelled<T>) state).response;
+        }
+
+        return (Try<T>) state;
+    }
+
+    private static final class Callback<T> {
+        private final Consumer<Try<T>> callback;
+        private Callback<T> next;
+
+        private Callback(Consumer<Try<T>> callback) {
+            this.callback = callback;
+        }
+    }
+
+    private record Cancelled<T>(Try<T> response) {
+    }
+
+    /**
+     * Parked thread waiting for the completion
+     */
+    private static final class Waiter<T> implements Consumer<Try<T>> {
+        private volatile Thread thread;
+
+        private Waiter(Thread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public void accept(Try<T> response) {
+            final Thread current = this.thread;
+
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+    }
+
+    /**
+     * Parking strategy shared by plain threads and fork join workers
+     */
+    private final class Blocker implements ForkJoinPool.ManagedBlocker {
+        private final boolean timed;
+        private final long deadline;
+
+        private Blocker(boolean timed, long deadline) {
+            this.timed = timed;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (isReleasable()) {
+                return true;
+            }
+
+            if (timed) {
+                LockSupport.parkNanos(SolvableFuture.this, deadline - System.nanoTime());
+            } else {
+                LockSupport.park(SolvableFuture.this);
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            return isReleasable();
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return isDone() || (timed && deadline - System.nanoTime() <= 0L);
+        }
+    }
+
+    private static final class Delivery<T> {
+        private final Callback<T> callbacks;
+        private final Try<T> response;
+        private Delivery<?> next;
+
+        private Delivery(Callback<T> callbacks, Try<T> response) {
+            this.callbacks = callbacks;
+            this.response = response;
+        }
+    }
+
+    /**
+     * Per thread nesting depth and queue of deferred deliveries, created by the first
+     * delivery done by the thread
+     */
+    private static final class Trampoline {
+        private int depth = 0;
+        private Delivery<?> head = null;
+        private Delivery<?> tail = null;
+        private RuntimeException failure = null;
+
+        private void add(Delivery<?> delivery) {
+            if (this.tail == null) {
+                DEFERRING.incrementAndGet();
+                this.head = delivery;
+            } else {
+                this.tail.next = delivery;
+            }
+
+            this.tail = delivery;
+        }
+
+        private Delivery<?> poll() {
+            final Delivery<?> delivery = this.head;
+
+            if (delivery != null) {
+                this.head = delivery.next;
+
+                if (this.head == null) {
+                    this.tail = null;
+                    DEFERRING.decrementAndGet();
+                }
+            }
+
+            return delivery;
+        }
+
+        private RuntimeException takeFailure() {
+            final RuntimeException current = this.failure;
+            this.failure = null;
+            return current;
+        }
+    }
 }
@@ -11,31 +11,48 @@ package org.smallibs.concurrent.promise.impl;
 import org.smallibs.concurrent.promise.Promise;
 import org.smallibs.data.Try;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
 public class SolvablePromise<T> extends AbstractPromise<T> {
 
-    private final SolvableFuture<T> future;
+    private static final VarHandle DEPENDENTS;
+    private static final VarHandle UPSTREAM;
+    private static final Object RELEASED = new Object();
 
-    private CountDownLatch awaiting;
-    private List<Consumer<T>> onSuccess;
-    private List<Consumer<Throwable>> onError;
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            DEPENDENTS = lookup.findVarHandle(SolvablePromise.class, "dependents", int.class);
+            UPSTREAM = lookup.findVarHandle(SolvablePromise.class, "upstream", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
-    public SolvablePromise() {
-        this.future = createFuture(this::notifyResponse);
+    private final CancellableFuture future;
+
+    /**
+     * Number of promises derived from this one and not cancelled
+     */
+    private volatile int dependents;
 
-        this.onSuccess = null;
-        this.onError = null;
-        this.awaiting = null;
+    /**
+     * The promise this one currently waits for, or RELEASED once completed
+     */
+    private volatile Object upstream;
+
+    public SolvablePromise() {
+        this.future = new CancellableFuture();
+        this.dependents = 0;
+        this.upstream = null;
     }
 
     @Override
@@ -44,31 +61,18 @@ public class SolvablePromise<T> extends AbstractPromise<T> {
     }
 
     @Override
-    public T await(Duration duration) throws Throwable {
-        var shouldAwait = false;
-
-        synchronized (future) {
-            shouldAwait = isNotCompleted();
-
-            if (shouldAwait && awaiting == null) {
-                awaiting = new CountDownLatch(1);
-            }
-        }
-
-        if (shouldAwait) {
-            try {
-                var awaited = awaiting.await(duration.toMillis(), TimeUnit.MILLISECONDS);
+    public boolean cancel() {
+        return future.cancel(true);
+    }
 
-                if (isNotCompleted() || !awaited) {
-                    throw new TimeoutException();
-                }
-            } catch (InterruptedException consumed) {
-                // Ignored
-            }
+    @Override
+    public T await(Duration duration) throws Throwable {
+        if (!this.future.isDone()) {
+            help(this);
         }
 
         try {
-            return future.get();
+            return future.get(duration.toNanos(), TimeUnit.NANOSECONDS);
         } catch (ExecutionException e) {
             throw e.getCause();
         }
@@ -78,20 +82,7 @@ public class SolvablePromise<T> extends AbstractPromise<T> {
     public Promise<T> onSuccess(Consumer<T> consumer) {
         Objects.requireNonNull(consumer);
 
-        synchronized (future) {
-            if (isNotCompleted()) {
-                if (this.onSuccess == null) {
-                    this.onSuccess = new ArrayList<>();
-                }
-                this.onSuccess.add(consumer);
-                return this;
-            }
-        }
-
-        try {
-            consumer.accept(future.get());
-        } catch (InterruptedException | ExecutionException ignored) {
-        }
+        this.future.register(response -> response.onSuccess(consumer));
 
         return this;
     }
@@ -100,23 +91,7 @@ public class SolvablePromise<T> extends AbstractPromise<T> {
     public Promise<T> onFailure(Consumer<Throwable> consumer) {
         Objects.requireNonNull(consumer);
 
-        synchronized (future) {
-            if (isNotCompleted()) {
-                if (this.onError == null) {
-                    this.onError = new ArrayList<>();
-                }
-                this.onError.add(consumer);
-                return this;
-            }
-        }
-
-        try {
-            this.future.get();
-        } catch (InterruptedException e) {
-            consumer.accept(e);
-        } catch (ExecutionException e) {
-            consumer.accept(e.getCause());
-        }
+        this.future.register(response -> response.onFailure(consumer));
 
         return this;
     }
@@ -125,47 +100,196 @@ public class SolvablePromise<T> extends AbstractPromise<T> {
     public Promise<T> onComplete(final Consumer<Try<T>> consumer) {
         Objects.requireNonNull(consumer);
 
-        return this.onSuccess(t -> consumer.accept(Try.success(t)))
-                .onFailure(throwable -> consumer.accept(Try.failure(throwable)));
+        this.future.register(consumer);
+
+        return this;
     }
 
     public boolean solve(final Try<T> response) {
-        synchronized (future) {
-            return this.future.solve(response);
+        if (this.future.solve(response)) {
+            this.upstream = RELEASED;
+            return true;
         }
+
+        return false;
     }
 
     //
     // Protected behaviors
     //
 
-    protected SolvableFuture<T> createFuture(Consumer<Try<T>> callbackOnComplete) {
-        return new SolvableFuture<>(callbackOnComplete);
+    Try<T> response() {
+        return this.future.response();
+    }
+
+    /**
+     * @return true if callbacks are registered and not activated yet
+     */
+    boolean isObserved() {
+        return this.future.hasCallbacks();
+    }
+
+    /**
+     * Solves or cancels this promise depending on a response: a failure due to a
+     * cancellation is propagated as a cancellation.
+     *
+     * @param response The response
+     */
+    void propagate(Try<T> response) {
+        if (isCancellation(response)) {
+            cancel();
+        } else {
+            solve(response);
+        }
+    }
+
+    /**
+     * Declares the promise this one currently waits for. When this promise is cancelled
+     * the upstream is released and cancelled if it was its last dependent.
+     *
+     * @param promise The upstream promise
+     */
+    void dependsOn(Promise<?> promise) {
+        retain(promise);
+
+        for (; ; ) {
+            final Object current = this.upstream;
+
+            if (current == RELEASED) {
+                release(promise);
+                return;
+            }
+
+            if (UPSTREAM.compareAndSet(this, current, promise)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Solves this promise without waiting for its upstream which is released and
+     * cancelled if it was its last dependent.
+     *
+     * @param response The response
+     * @return true if the promise has been solved, false otherwise
+     */
+    boolean abandon(Try<T> response) {
+        if (this.future.solve(response)) {
+            releaseUpstream(UPSTREAM.getAndSet(this, RELEASED));
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Hook activated when this promise is cancelled
+     */
+    protected void onCancel() {
+        // Nothing by default
+    }
+
+    static boolean isCancellation(Try<?> response) {
+        return response instanceof Try.Failure<?> failure && failure.value() instanceof CancellationException;
+    }
+
+    static void retain(Promise<?> promise) {
+        if (promise instanceof SolvablePromise<?> solvablePromise) {
+            DEPENDENTS.getAndAdd(solvablePromise, 1);
+        } else if (promise instanceof MappedPromise<?, ?> stage) {
+            stage.retain();
+        }
+    }
+
+    static void release(Promise<?> promise) {
+        releaseUpstream(promise);
+    }
+
+    /**
+     * Looks for the task a promise waits for: a task not started yet by the executor of
+     * the current thread is run inline and a task run by the current thread can never be
+     * awaited.
+     *
+     * @param upstream The awaited promise or RELEASED
+     */
+    static void help(Object upstream) {
+        Object current = upstream;
+
+        for (; ; ) {
+            if (current instanceof SolvablePromise<?> promise && !promise.future.isDone()) {
+                if (promise instanceof RunnablePromise<?> runnablePromise) {
+                    runnablePromise.help();
+                    return;
+                }
+
+                current = promise.upstream;
+            } else if (current instanceof MappedPromise<?, ?> stage) {
+                current = stage.upstream();
+            } else {
+                return;
+            }
+        }
     }
 
     //
     // Private behaviors
     //
 
-    private boolean isNotCompleted() {
-        return !future.isDone() && !future.isCancelled();
-    }
+    /**
+     * Releases a promise and, while the released promise is cancelled because it was the
+     * last dependent of its upstream, this upstream. Promises are released iteratively so
+     * the stack depth does not depend on the length of the chain.
+     *
+     * @param upstream The released upstream or RELEASED
+     */
+    private static void releaseUpstream(Object upstream) {
+        Object current = upstream;
+
+        for (; ; ) {
+            if (current instanceof SolvablePromise<?> promise) {
+                if ((int) DEPENDENTS.getAndAdd(promise, -1) != 1 || !promise.future.cancelAlone()) {
+                    return;
+                }
 
-    private void notifyResponse(Try<T> response) {
-        if (awaiting != null) {
-            awaiting.countDown();
+                current = UPSTREAM.getAndSet(promise, RELEASED);
+            } else if (current instanceof MappedPromise<?, ?> stage) {
+                current = stage.release();
+            } else {
+                return;
+            }
         }
+    }
 
-        response.onSuccess(s -> {
-            if (onSuccess != null) {
-                onSuccess.forEach(c -> c.accept(s));
-                onSuccess.clear();
-            }
-        }).onFailure(t -> {
-            if (onError != null) {
-                onError.forEach(c -> c.accept(t));
-                onError.clear();
+    //
+    // Internal classes
+    //
+
+    /**
+     * Future of the promise: its cancellation activates the promise hook and releases the
+     * upstream promise
+     */
+    private final class CancellableFuture extends SolvableFuture<T> {
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (cancelAlone()) {
+                releaseUpstream(UPSTREAM.getAndSet(SolvablePromise.this, RELEASED));
+                return true;
             }
-        });
+
+            return false;
+        }
+
+        @Override
+        protected void onCancel() {
+            SolvablePromise.this.onCancel();
+        }
+
+        /**
+         * Cancels the future without releasing the upstream
+         */
+        private boolean cancelAlone() {
+            return super.cancel(true);
+        }
     }
 }
@@ -8,12 +8,260 @@
 
 package org.smallibs.concurrent.promise.impl;
 
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.promise.Promise;
 import org.smallibs.data.Try;
+import org.smallibs.data.Unit;
+import org.smallibs.exception.FilterException;
+import org.smallibs.util.FunctionWithError;
 
-public final class SolvedPromise<T> extends SolvablePromise<T> {
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
-    public SolvedPromise(Try<T> value) {
-        this.solve(value);
+/**
+ * Immutable completed promise. Callbacks are immediately activated and combinators
+ * are eagerly applied returning another completed promise when possible. Such a
+ * promise is its own future.
+ */
+public final class SolvedPromise<T> implements Promise<T>, Future<T> {
+
+    private static final SolvedPromise<?> NULL = new SolvedPromise<>(Try.success(null));
+    private static final SolvedPromise<Unit> UNIT = new SolvedPromise<>(Try.success(Unit.unit));
+    private static final SolvedPromise<Boolean> TRUE = new SolvedPromise<>(Try.success(Boolean.TRUE));
+    private static final SolvedPromise<Boolean> FALSE = new SolvedPromise<>(Try.success(Boolean.FALSE));
+
+    private final Try<T> response;
+
+    public SolvedPromise(Try<T> response) {
+        Objects.requireNonNull(response);
+
+        this.response = response;
+    }
+
+    /**
+     * Factory returning a shared instance for null, unit and boolean values
+     *
+     * @param <T>   The value type
+     * @param value The captured value
+     * @return a solved promise
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> SolvedPromise<T> success(T value) {
+        if (value == null) {
+            return (SolvedPromise<T>) NULL;
+        } else if (value == Unit.unit) {
+            return (SolvedPromise<T>) UNIT;
+        } else if (value instanceof Boolean b) {
+            return (SolvedPromise<T>) (b ? TRUE : FALSE);
+        }
+
+        return new SolvedPromise<>(Try.success(value));
+    }
+
+    public static <T> SolvedPromise<T> failure(Throwable throwable) {
+        return new SolvedPromise<>(Try.failure(throwable));
+    }
+
+    public static <T> SolvedPromise<T> of(Try<T> response) {
+        return response.fold(SolvedPromise::success, SolvedPromise::failure);
+    }
+
+    @Override
+    public Future<T> getFuture() {
+        return this;
+    }
+
+    @Override
+    public boolean cancel() {
+        return false;
+    }
+
+    @Override
+    public T await(Duration duration) throws Throwable {
+        return response.orElseThrow();
+    }
+
+    @Override
+    public Promise<T> onSuccess(Consumer<T> consumer) {
+        Objects.requireNonNull(consumer);
+
+        response.onSuccess(consumer);
+
+        return this;
+    }
+
+    @Override
+    public Promise<T> onFailure(Consumer<Throwable> consumer) {
+        Objects.requireNonNull(consumer);
+
+        response.onFailure(consumer);
+
+        return this;
+    }
+
+    @Override
+    public Promise<T> onComplete(Consumer<Try<T>> consumer) {
+        Objects.requireNonNull(consumer);
+
+        consumer.accept(response);
+
+        return this;
+    }
+
+    @Override
+    public <R> Promise<R> map(FunctionWithError<? super T, ? extends R> function) {
+        Objects.requireNonNull(function);
+
+        return response.fold(v -> apply(function, v), this::failed);
+    }
+
+    @Override
+    public Promise<T> onCompleteAsync(Consumer<Try<T>> consumer, Executor executor) {
+        Objects.requireNonNull(consumer);
+        Objects.requireNonNull(executor);
+
+        AsyncStagePromise.onComplete(this, consumer, executor);
+
+        return this;
+    }
+
+    @Override
+    public <R> Promise<R> mapAsync(FunctionWithError<? super T, ? extends R> function, Executor executor) {
+        Objects.requireNonNull(function);
+        Objects.requireNonNull(executor);
+
+        return response.fold(v -> AsyncStagePromise.map(this, function, executor), this::failed);
+    }
+
+    @Override
+    public <R> Promise<R> biMap(FunctionWithError<? super T, ? extends R> onSuccess, FunctionWithError<? super Throwable, ? extends R> onError) {
+        Objects.requireNonNull(onSuccess);
+        Objects.requireNonNull(onError);
+
+        return response.fold(v -> apply(onSuccess, v), v -> apply(onError, v));
+    }
+
+    @Override
+    public <R> Promise<R> flatmap(Function<? super T, Promise<R>> function) {
+        Objects.requireNonNull(function);
+
+        return response.fold(v -> bind(function, v), this::failed);
+    }
+
+    @Override
+    public <R> Promise<R> flatmapAsync(Function<? super T, Promise<R>> function, Executor executor) {
+        Objects.requireNonNull(function);
+        Objects.requireNonNull(executor);
+
+        return response.fold(v -> AsyncStagePromise.flatmap(this, function, executor), this::failed);
+    }
+
+    @Override
+    public Promise<T> filter(Predicate<? super T> predicate) {
+        Objects.requireNonNull(predicate);
+
+        return response.fold(v -> test(predicate, v), t -> this);
     }
 
+    @Override
+    public Promise<T> orTimeout(Duration duration) {
+        Objects.requireNonNull(duration);
+
+        return this;
+    }
+
+    @Override
+    public Promise<T> completeOnTimeout(T value, Duration duration) {
+        Objects.requireNonNull(duration);
+
+        return this;
+    }
+
+    @Override
+    public Promise<T> self() {
+        return this;
+    }
+
+    //
+    // Future behaviors
+    //
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        return true;
+    }
+
+    @Override
+    public T get() throws ExecutionException {
+        return response.orElseThrow(t -> {
+            if (t instanceof ExecutionException) {
+                return (ExecutionException) t;
+            } else {
+                return new ExecutionException(t);
+            }
+        });
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws ExecutionException {
+        return get();
+    }
+
+    //
+    // Protected behaviors
+    //
+
+    Try<T> response() {
+        return response;
+    }
+
+    //
+    // Private behaviors
+    //
+
+    @SuppressWarnings("unchecked")
+    private <R> Promise<R> failed(Throwable throwable) {
+        // A failure does not depend on the value type and can be safely shared
+        return (Promise<R>) this;
+    }
+
+    private Promise<T> test(Predicate<? super T> predicate, T value) {
+        try {
+            return predicate.test(value) ? this : failure(new FilterException());
+        } catch (Throwable throwable) {
+            return failure(throwable);
+        }
+    }
+
+    private static <A, R> Promise<R> apply(FunctionWithError<? super A, ? extends R> function, A value) {
+        try {
+            return success(function.apply(value));
+        } catch (Throwable throwable) {
+            return failure(throwable);
+        }
+    }
+
+    private static <A, R> Promise<R> bind(Function<? super A, Promise<R>> function, A value) {
+        try {
+            return function.apply(value);
+        } catch (Throwable throwable) {
+            return failure(throwable);
+        }
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Countdown spreading contention. The count is split into stripes, each on its own cache
+ * line, and a thread decrements the stripe selected by its identifier. When its stripe is
+ * exhausted it moves to the next one. The shared counter of remaining stripes is only hit
+ * when a stripe reaches zero.
+ */
+final class StripedCountDown {
+
+    private static final int PADDING = 16;
+    private static final int MIN_COUNT_PER_STRIPE = 64;
+    private static final int MAX_STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2);
+
+    private final AtomicIntegerArray stripes;
+    private final AtomicInteger remainingStripes;
+    private final int mask;
+
+    StripedCountDown(int count) {
+        final int size = Math.max(1, Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, count / MIN_COUNT_PER_STRIPE))));
+
+        this.stripes = new AtomicIntegerArray(size * PADDING);
+        this.remainingStripes = new AtomicInteger(size);
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            this.stripes.set(i * PADDING, count / size + (i < count % size ? 1 : 0));
+        }
+    }
+
+    /**
+     * Decrements the count. Must not be called more than the initial count.
+     *
+     * @return true if the count reached zero, false otherwise
+     */
+    boolean countDown() {
+        final int start = probe();
+
+        for (int i = 0; i <= mask; i++) {
+            final int index = ((start + i) & mask) * PADDING;
+
+            for (int current = this.stripes.get(index); current > 0; current = this.stripes.get(index)) {
+                if (this.stripes.compareAndSet(index, current, current - 1)) {
+                    return current == 1 && this.remainingStripes.decrementAndGet() == 0;
+                }
+            }
+        }
+
+        throw new IllegalStateException("count down below zero");
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private int probe() {
+        final long id = Thread.currentThread().threadId();
+        return (int) (id ^ (id >>> 16)) * 0x9E3779B9 >>> 16;
+    }
+}
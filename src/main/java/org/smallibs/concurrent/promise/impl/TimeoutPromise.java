@@ -0,0 +1,49 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise.impl;
+
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.timer.Timer;
+import org.smallibs.data.Try;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Promise completed by its upstream or by a timer. The timeout is cancelled as soon
+ * as the upstream completes and the upstream is abandoned when the timeout expires.
+ * The expiration is handed off to the common pool so continuations of the promise never
+ * run on the timer thread.
+ */
+final class TimeoutPromise<T> extends SolvablePromise<T> {
+
+    private final Timer.Timeout timeout;
+
+    TimeoutPromise(Promise<T> promise, Timer timer, Duration duration, Supplier<Try<T>> onTimeout) {
+        super();
+
+        this.dependsOn(promise);
+        this.timeout = timer.schedule(() -> this.abandon(onTimeout.get()), duration, ForkJoinPool.commonPool());
+
+        promise.onComplete(response -> {
+            this.timeout.cancel();
+            this.propagate(response);
+        });
+    }
+
+    //
+    // Protected behaviors
+    //
+
+    @Override
+    protected void onCancel() {
+        this.timeout.cancel();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise.impl;
+
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.data.Try;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Promise mapping the elements of an iterable with a bounded number of promises in flight.
+ * Elements are lazily pulled when a slot is available. The state is only modified by a
+ * single draining thread: completions are queued and the thread which increments the
+ * work-in-progress counter from zero drains them, so the iterator is never accessed
+ * concurrently and synchronous completions do not recurse.
+ */
+public final class TraversePromise<A, B> extends SolvablePromise<List<B>> {
+
+    private final Iterator<? extends A> iterator;
+    private final Function<? super A, Promise<B>> function;
+    private final int parallelism;
+    private final boolean ordered;
+    private final Queue<Completion<B>> completions;
+    private final Set<Promise<B>> live;
+    private final AtomicInteger wip;
+
+    // Owned by the draining thread
+    private final List<B> results;
+    private int inFlight;
+    private int launched;
+
+    /**
+     * Constructor
+     *
+     * @param elements    The elements to be mapped
+     * @param function    The function producing a promise for each element
+     * @param parallelism The maximum number of promises in flight
+     * @param ordered     True if the results respect the elements order, false for the completion order
+     */
+    public TraversePromise(Iterable<? extends A> elements, Function<? super A, Promise<B>> function, int parallelism, boolean ordered) {
+        Objects.requireNonNull(elements);
+        Objects.requireNonNull(function);
+
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+
+        this.iterator = elements.iterator();
+        this.function = function;
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.completions = new ConcurrentLinkedQueue<>();
+        this.live = ConcurrentHashMap.newKeySet();
+        this.wip = new AtomicInteger(0);
+        this.results = new ArrayList<>();
+        this.inFlight = 0;
+        this.launched = 0;
+
+        drain();
+    }
+
+    //
+    // Protected behaviors
+    //
+
+    @Override
+    protected void onCancel() {
+        releaseLive();
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void drain() {
+        if (this.wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+
+        do {
+            try {
+                consume();
+                launch();
+            } catch (Throwable throwable) {
+                fail(Try.failure(throwable));
+            }
+
+            missed = this.wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void consume() {
+        Completion<B> completion;
+
+        while ((completion = this.completions.poll()) != null) {
+            this.live.remove(completion.promise);
+            this.inFlight -= 1;
+
+            if (getFuture().isDone()) {
+                continue;
+            }
+
+            if (completion.response instanceof Try.Success<B> success) {
+                if (this.ordered) {
+                    this.results.set(completion.index, success.value());
+                } else {
+                    this.results.add(success.value());
+                }
+            } else {
+                fail(completion.response);
+            }
+        }
+    }
+
+    private void launch() {
+        while (!getFuture().isDone() && this.inFlight < this.parallelism && this.iterator.hasNext()) {
+            final int index = this.launched++;
+            final Promise<B> promise = this.function.apply(this.iterator.next());
+
+            if (this.ordered) {
+                this.results.add(null);
+            }
+
+            this.inFlight += 1;
+            this.live.add(promise);
+            retain(promise);
+
+            promise.onComplete(response -> {
+                this.completions.add(new Completion<>(index, promise, response));
+                drain();
+            });
+        }
+
+        if (!getFuture().isDone() && this.inFlight == 0 && !this.iterator.hasNext()) {
+            solve(Try.success(this.results));
+        }
+    }
+
+    private void fail(Try<B> response) {
+        if (isCancellation(response)) {
+            cancel();
+        } else if (solve(Try.failure(((Try.Failure<B>) response).value()))) {
+            releaseLive();
+        }
+    }
+
+    private void releaseLive() {
+        for (final Promise<B> promise : this.live) {
+            if (this.live.remove(promise)) {
+                release(promise);
+            }
+        }
+    }
+
+    //
+    // Internal classes
+    //
+
+    private record Completion<B>(int index, Promise<B> promise, Try<B> response) {
+    }
+}
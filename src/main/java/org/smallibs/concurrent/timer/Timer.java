@@ -0,0 +1,55 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.timer;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * A timer executes short tasks after a given delay without dedicating a thread to each of them.
+ */
+public interface Timer {
+
+    /**
+     * A scheduled task
+     */
+    interface Timeout {
+
+        /**
+         * Cancels the scheduled task
+         *
+         * @return true if the task has been cancelled before its execution, false otherwise
+         */
+        boolean cancel();
+
+    }
+
+    /**
+     * Schedule method. The task is executed by the timer thread and must be short.
+     *
+     * @param task  The task to be executed
+     * @param delay The delay before the execution
+     * @return a cancellable timeout
+     */
+    Timeout schedule(Runnable task, Duration delay);
+
+    /**
+     * Schedule method. When the delay expires the timer thread only hands the task off to
+     * the executor, so the task and what it triggers never run on the timer thread.
+     *
+     * @param task     The task to be executed
+     * @param delay    The delay before the execution
+     * @param executor The executor running the task
+     * @return a cancellable timeout
+     */
+    default Timeout schedule(Runnable task, Duration delay, Executor executor) {
+        return schedule(() -> executor.execute(task), delay);
+    }
+
+}
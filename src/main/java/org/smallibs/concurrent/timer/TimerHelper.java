@@ -0,0 +1,48 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.timer;
+
+import org.smallibs.concurrent.timer.impl.HashedWheelTimer;
+
+import java.time.Duration;
+
+/**
+ * Timer builder
+ */
+public enum TimerHelper {
+    ;
+
+    /**
+     * Factory
+     *
+     * @param tick      The duration of a wheel tick i.e. the timer precision
+     * @param wheelSize The number of buckets in the wheel
+     * @return a new timer
+     */
+    public static Timer create(Duration tick, int wheelSize) {
+        return new HashedWheelTimer(tick, wheelSize);
+    }
+
+    /**
+     * Shared timer with a 10 milliseconds precision
+     *
+     * @return the shared timer
+     */
+    public static Timer shared() {
+        return Shared.TIMER;
+    }
+
+    //
+    // Internal classes
+    //
+
+    private static final class Shared {
+        private static final Timer TIMER = create(Duration.ofMillis(10), 512);
+    }
+}
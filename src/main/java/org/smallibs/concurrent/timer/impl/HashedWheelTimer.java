@@ -0,0 +1,252 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.timer.impl;
+
+import org.smallibs.concurrent.timer.Timer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed wheel timer. Timeouts are pushed onto a lock-free stack and dispatched by a single
+ * daemon thread in a wheel of buckets, each tick expiring one bucket. A cancellation is a
+ * single CAS: the cancelled timeout is dropped the next time its bucket is visited i.e. at most
+ * one wheel revolution later. The thread parks when no timeout is pending.
+ */
+public final class HashedWheelTimer implements Timer {
+
+    private static final VarHandle INCOMING;
+
+    static {
+        try {
+            INCOMING = MethodHandles.lookup().findVarHandle(HashedWheelTimer.class, "incoming", Entry.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long tickNanos;
+    private final Entry[] wheel;
+    private final int mask;
+    private final long origin;
+    private final Thread worker;
+
+    /**
+     * Timeouts scheduled and not yet dispatched in the wheel
+     */
+    private volatile Entry incoming;
+
+    /**
+     * True when the worker is parked waiting for a timeout
+     */
+    private volatile boolean idle;
+
+    /**
+     * Number of timeouts in the wheel, owned by the worker
+     */
+    private long dispatched;
+
+    public HashedWheelTimer(Duration tick, int wheelSize) {
+        Objects.requireNonNull(tick);
+
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("tick must be positive");
+        }
+
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheel size must be in [1, 2^30]");
+        }
+
+        final int size = Integer.highestOneBit(wheelSize) == wheelSize ? wheelSize : Integer.highestOneBit(wheelSize) << 1;
+
+        this.tickNanos = tick.toNanos();
+        this.wheel = new Entry[size];
+        this.mask = size - 1;
+        this.origin = System.nanoTime();
+        this.incoming = null;
+        this.idle = false;
+        this.dispatched = 0;
+        this.worker = Thread.ofPlatform().name("hpas-timer").daemon().unstarted(this::work);
+        this.worker.start();
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, Duration delay) {
+        Objects.requireNonNull(task);
+        Objects.requireNonNull(delay);
+
+        final Entry entry = new Entry(task, System.nanoTime() - origin + Math.max(0, delay.toNanos()));
+
+        for (; ; ) {
+            final Entry current = this.incoming;
+            entry.next = current;
+
+            if (INCOMING.compareAndSet(this, current, entry)) {
+                break;
+            }
+        }
+
+        if (this.idle) {
+            LockSupport.unpark(this.worker);
+        }
+
+        return entry;
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private void work() {
+        long tick = 0;
+
+        for (; ; ) {
+            if (this.dispatched == 0 && this.incoming == null) {
+                waitForTimeouts();
+                // Empty buckets need not be visited: resume with the current tick
+                tick = (System.nanoTime() - origin) / tickNanos;
+            }
+
+            waitForTick(tick);
+            transfer(tick);
+            expire(tick);
+
+            tick += 1;
+        }
+    }
+
+    private void waitForTimeouts() {
+        this.idle = true;
+
+        while (this.incoming == null) {
+            LockSupport.park(this);
+        }
+
+        this.idle = false;
+    }
+
+    private void waitForTick(long tick) {
+        final long deadline = (tick + 1) * tickNanos;
+
+        for (long now = System.nanoTime() - origin; now < deadline; now = System.nanoTime() - origin) {
+            LockSupport.parkNanos(this, deadline - now);
+        }
+    }
+
+    private void transfer(long tick) {
+        Entry entry = (Entry) INCOMING.getAndSet(this, (Entry) null);
+
+        while (entry != null) {
+            final Entry next = entry.next;
+
+            if (entry.isPending()) {
+                final long calculated = entry.deadline / tickNanos;
+                final int bucket = (int) (Math.max(calculated, tick) & mask);
+
+                entry.rounds = (calculated - tick) / wheel.length;
+                entry.next = wheel[bucket];
+                wheel[bucket] = entry;
+                this.dispatched += 1;
+            }
+
+            entry = next;
+        }
+    }
+
+    private void expire(long tick) {
+        final int bucket = (int) (tick & mask);
+
+        Entry previous = null;
+        Entry entry = wheel[bucket];
+
+        while (entry != null) {
+            final Entry next = entry.next;
+
+            if (!entry.isPending() || entry.rounds <= 0) {
+                if (previous == null) {
+                    wheel[bucket] = next;
+                } else {
+                    previous.next = next;
+                }
+
+                entry.next = null;
+                this.dispatched -= 1;
+                entry.expire(worker);
+            } else {
+                entry.rounds -= 1;
+                previous = entry;
+            }
+
+            entry = next;
+        }
+    }
+
+    //
+    // Internal classes
+    //
+
+    private static final class Entry implements Timeout {
+
+        private static final VarHandle STATE;
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Entry.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final long deadline;
+        private Runnable task;
+        private volatile int state;
+        private long rounds;
+        private Entry next;
+
+        private Entry(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+            this.state = PENDING;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                // Releases the task immediately, the entry being dropped later
+                this.task = null;
+                return true;
+            }
+
+            return false;
+        }
+
+        private boolean isPending() {
+            return this.state == PENDING;
+        }
+
+        private void expire(Thread worker) {
+            if (STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                final Runnable runnable = this.task;
+                this.task = null;
+
+                try {
+                    runnable.run();
+                } catch (Throwable throwable) {
+                    worker.getUncaughtExceptionHandler().uncaughtException(worker, throwable);
+                }
+            }
+        }
+    }
+}
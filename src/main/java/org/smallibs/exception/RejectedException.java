@@ -0,0 +1,24 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.exception;
+
+/**
+ * Failure of a task rejected by an overloaded executor. Such an exception has neither a
+ * stack trace nor suppressed exceptions so a single immutable instance can be shared.
+ */
+public final class RejectedException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final RejectedException INSTANCE = new RejectedException();
+
+    private RejectedException() {
+        super("task rejected: too many tasks in flight", null, false, false);
+    }
+}
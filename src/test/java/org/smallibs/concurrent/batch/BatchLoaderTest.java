@@ -0,0 +1,160 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.execution.ExecutorHelper;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.PromiseHelper;
+import org.smallibs.exception.NoValueException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchLoaderTest {
+
+    @Test
+    public void shouldBatchLoadsWithinADelay() throws Throwable {
+        final List<List<Integer>> calls = Collections.synchronizedList(new ArrayList<>());
+        final BatchLoader<Integer, String> loader = BatchHelper.create(givenAnExecutor(), keys -> {
+            calls.add(keys);
+            return toStrings(keys);
+        }, 100, Duration.ofMillis(50));
+
+        final Promise<String> first = loader.load(1);
+        final Promise<String> second = loader.load(2);
+
+        assertThat(first.await(Duration.ofSeconds(5))).isEqualTo("1");
+        assertThat(second.await(Duration.ofSeconds(5))).isEqualTo("2");
+        assertThat(calls).hasSize(1);
+        assertThat(calls.get(0)).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    public void shouldBatchLoadsUpToASize() throws Throwable {
+        final List<List<Integer>> calls = Collections.synchronizedList(new ArrayList<>());
+        final BatchLoader<Integer, String> loader = BatchHelper.create(givenAnExecutor(), keys -> {
+            calls.add(keys);
+            return toStrings(keys);
+        }, 10, Duration.ofMinutes(1));
+
+        final List<Promise<String>> promises = IntStream.range(0, 100).mapToObj(loader::load).toList();
+
+        assertThat(PromiseHelper.all(promises).await(Duration.ofSeconds(5))).hasSize(100);
+        assertThat(calls).hasSize(10).allSatisfy(keys -> assertThat(keys).hasSize(10));
+        assertThat(loader.metrics().maxBatchSize()).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldDeduplicateKeys() throws Throwable {
+        final BatchLoader<Integer, String> loader = BatchHelper.create(givenAnExecutor(), BatchLoaderTest::toStrings, 100, Duration.ofMillis(50));
+
+        final Promise<String> first = loader.load(1);
+        final Promise<String> second = loader.load(1);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(first.await(Duration.ofSeconds(5))).isEqualTo("1");
+        assertThat(second.await(Duration.ofSeconds(5))).isEqualTo("1");
+        assertThat(loader.metrics().deduplicated()).isEqualTo(1);
+        assertThat(loader.metrics().keys()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldFailMissingKeys() {
+        final BatchLoader<Integer, String> loader = BatchHelper.create(givenAnExecutor(), keys -> Map.of(), 100, Duration.ofMillis(10));
+
+        Assertions.assertThatThrownBy(() -> loader.load(1).await(Duration.ofSeconds(5)))
+                .isInstanceOf(NoValueException.class);
+    }
+
+    @Test
+    public void shouldFailAllKeysOfAFailingBatch() {
+        final BatchLoader<Integer, String> loader = BatchHelper.create(givenAnExecutor(), keys -> {
+            throw new SecurityException();
+        }, 100, Duration.ofMillis(10));
+
+        final Promise<String> first = loader.load(1);
+        final Promise<String> second = loader.load(2);
+
+        Assertions.assertThatThrownBy(() -> first.await(Duration.ofSeconds(5))).isInstanceOf(SecurityException.class);
+        Assertions.assertThatThrownBy(() -> second.await(Duration.ofSeconds(5))).isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    public void shouldFlushOnDemand() throws Throwable {
+        final BatchLoader<Integer, String> loader = BatchHelper.create(givenAnExecutor(), BatchLoaderTest::toStrings, 100, Duration.ofMinutes(1));
+
+        final Promise<String> promise = loader.load(1);
+        loader.flush();
+
+        assertThat(promise.await(Duration.ofSeconds(5))).isEqualTo("1");
+    }
+
+    @Test
+    public void shouldBatchLoadsOfATick() throws Throwable {
+        final ExecutorService tick = Executors.newSingleThreadExecutor();
+        final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        final BatchLoader<Integer, String> loader = BatchHelper.perTick(keys -> {
+            batches.add(keys);
+            return PromiseHelper.success(toStrings(keys));
+        }, 100, Duration.ofMinutes(1), tick);
+
+        final List<Promise<String>> promises = tick.submit(() -> IntStream.range(0, 3).mapToObj(loader::load).toList()).get();
+
+        assertThat(PromiseHelper.all(promises).await(Duration.ofSeconds(5))).containsExactly("0", "1", "2");
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    public void shouldNotCancelTheLoadOfTheOtherCallers() throws Throwable {
+        final BatchLoader<Integer, String> loader = BatchHelper.create(givenAnExecutor(), BatchLoaderTest::toStrings, 100, Duration.ofMinutes(1));
+
+        final Promise<String> first = loader.load(1);
+        final Promise<String> second = loader.load(1);
+
+        assertThat(first.cancel()).isTrue();
+        loader.flush();
+
+        assertThat(second.await(Duration.ofSeconds(5))).isEqualTo("1");
+    }
+
+    @Test
+    public void shouldLoadConcurrently() throws Throwable {
+        final BatchLoader<Integer, String> loader = BatchHelper.create(givenAnExecutor(), BatchLoaderTest::toStrings, 64, Duration.ofMillis(5));
+
+        final List<Integer> keys = IntStream.range(0, 100_000).map(i -> i % 1_000).boxed().toList();
+        final List<Promise<String>> promises = keys.parallelStream().map(loader::load).toList();
+
+        final List<String> values = PromiseHelper.all(promises).await(Duration.ofSeconds(30));
+
+        assertThat(values).isEqualTo(keys.stream().map(String::valueOf).toList());
+        assertThat(loader.metrics().keys() + loader.metrics().deduplicated()).isEqualTo(100_000);
+        assertThat(loader.metrics().maxBatchSize()).isLessThanOrEqualTo(64);
+    }
+
+    private static Map<Integer, String> toStrings(List<Integer> keys) {
+        return keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf));
+    }
+
+    private Executor givenAnExecutor() {
+        return ExecutorHelper.create(Executors.newSingleThreadExecutor());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.cache;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.execution.ExecutorHelper;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.PromiseHelper;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.data.Try;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncCacheTest {
+
+    @Test
+    public void shouldShareConcurrentLoads() throws Throwable {
+        final SolvablePromise<String> load = new SolvablePromise<>();
+        final AtomicInteger loads = new AtomicInteger(0);
+        final AsyncCache<Integer, String> cache = CacheHelper.create(key -> {
+            loads.incrementAndGet();
+            return load;
+        }, 100);
+
+        final List<Promise<String>> promises = IntStream.range(0, 100).parallel().mapToObj(i -> cache.get(1)).toList();
+        load.solve(Try.success("1"));
+
+        assertThat(PromiseHelper.all(promises).await(Duration.ofSeconds(5))).allMatch("1"::equals);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+        assertThat(cache.stats().hits()).isEqualTo(99);
+    }
+
+    @Test
+    public void shouldServeLoadedValues() throws Throwable {
+        final AtomicInteger loads = new AtomicInteger(0);
+        final AsyncCache<Integer, String> cache = CacheHelper.create(key -> {
+            loads.incrementAndGet();
+            return PromiseHelper.success(String.valueOf(key));
+        }, 100);
+
+        assertThat(cache.get(1).await(Duration.ofSeconds(5))).isEqualTo("1");
+        assertThat(cache.get(1).await(Duration.ofSeconds(5))).isEqualTo("1");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.stats().hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void shouldEvictFailedLoads() throws Throwable {
+        final AtomicInteger loads = new AtomicInteger(0);
+        final AsyncCache<Integer, String> cache = CacheHelper.create(key -> {
+            if (loads.incrementAndGet() == 1) {
+                return PromiseHelper.failure(new SecurityException());
+            }
+            return PromiseHelper.success(String.valueOf(key));
+        }, 100);
+
+        Assertions.assertThatThrownBy(() -> cache.get(1).await(Duration.ofSeconds(5)))
+                .isInstanceOf(SecurityException.class);
+        assertThat(cache.get(1).await(Duration.ofSeconds(5))).isEqualTo("1");
+        assertThat(cache.stats().loadFailures()).isEqualTo(1);
+        assertThat(cache.stats().loadSuccesses()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotBeCancelledByACaller() throws Throwable {
+        final SolvablePromise<String> load = new SolvablePromise<>();
+        final AsyncCache<Integer, String> cache = CacheHelper.create(key -> load, 100);
+
+        cache.get(1).map(String::length).cancel();
+        load.solve(Try.success("1"));
+
+        assertThat(cache.get(1).await(Duration.ofSeconds(5))).isEqualTo("1");
+    }
+
+    @Test
+    public void shouldNotCancelTheLoadOfTheOtherCallers() throws Throwable {
+        final SolvablePromise<String> load = new SolvablePromise<>();
+        final AtomicInteger loads = new AtomicInteger(0);
+        final AsyncCache<Integer, String> cache = CacheHelper.create(key -> {
+            loads.incrementAndGet();
+            return load;
+        }, 100);
+
+        final Promise<String> first = cache.get(1);
+        final Promise<String> second = cache.get(1);
+
+        assertThat(first.cancel()).isTrue();
+        load.solve(Try.success("1"));
+
+        assertThat(second.await(Duration.ofSeconds(5))).isEqualTo("1");
+        assertThat(cache.get(1).await(Duration.ofSeconds(5))).isEqualTo("1");
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldExpireValues() throws Throwable {
+        final AtomicInteger loads = new AtomicInteger(0);
+        final AsyncCache<Integer, Integer> cache = CacheHelper.create(key -> PromiseHelper.success(loads.incrementAndGet()), 100, Duration.ofMillis(50));
+
+        assertThat(cache.get(1).await(Duration.ofSeconds(5))).isEqualTo(1);
+        Thread.sleep(100);
+        assertThat(cache.get(1).await(Duration.ofSeconds(5))).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRefreshAhead() throws Throwable {
+        final Executor executor = ExecutorHelper.create(Executors.newSingleThreadExecutor());
+        final AtomicInteger loads = new AtomicInteger(0);
+        final AsyncCache<Integer, Integer> cache = CacheHelper.create(
+                key -> executor.async(loads::incrementAndGet),
+                100,
+                Duration.ofMinutes(1),
+                Duration.ofMillis(50)
+        );
+
+        assertThat(cache.get(1).await(Duration.ofSeconds(5))).isEqualTo(1);
+        Thread.sleep(100);
+
+        // The current value is served while refreshed
+        assertThat(cache.get(1).await(Duration.ofSeconds(5))).isEqualTo(1);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> ExecutorHelper.await(cache.get(1), Duration.ofSeconds(5)).equals(Try.success(2)));
+    }
+
+    @Test
+    public void shouldBoundTheSize() {
+        final AsyncCache<Integer, Integer> cache = CacheHelper.create(PromiseHelper::success, 100);
+
+        IntStream.range(0, 10_000).forEach(cache::get);
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.stats().evictions()).isGreaterThanOrEqualTo(9_900);
+    }
+
+    @Test
+    public void shouldKeepFrequentlyAccessedKeys() {
+        final AsyncCache<Integer, Integer> cache = CacheHelper.create(PromiseHelper::success, 100);
+
+        for (int round = 0; round < 10; round++) {
+            IntStream.range(0, 50).forEach(cache::get);
+        }
+
+        // A scan of keys accessed once must not flush the frequent ones
+        IntStream.range(1_000, 2_000).forEach(cache::get);
+
+        final long misses = cache.stats().misses();
+        IntStream.range(0, 50).forEach(cache::get);
+
+        assertThat(cache.stats().misses() - misses).isLessThan(5);
+    }
+
+    @Test
+    public void shouldInvalidateKeys() throws Throwable {
+        final AtomicInteger loads = new AtomicInteger(0);
+        final AsyncCache<Integer, Integer> cache = CacheHelper.create(key -> PromiseHelper.success(loads.incrementAndGet()), 100);
+
+        assertThat(cache.get(1).await(Duration.ofSeconds(5))).isEqualTo(1);
+        cache.invalidate(1);
+        assertThat(cache.get(1).await(Duration.ofSeconds(5))).isEqualTo(2);
+    }
+}
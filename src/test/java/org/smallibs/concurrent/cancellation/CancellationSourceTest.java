@@ -0,0 +1,172 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.cancellation;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.execution.ExecutorHelper;
+import org.smallibs.concurrent.promise.Promise;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CancellationSourceTest {
+
+    @Test
+    public void shouldDropQueuedTasks() throws Throwable {
+        final Executor executor = givenAnExecutor();
+        final CancellationSource source = CancellationHelper.create();
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger started = new AtomicInteger(0);
+
+        final Promise<Integer> blocking = executor.async(() -> {
+            release.await();
+            return 1;
+        });
+
+        final List<Promise<Integer>> queued = IntStream.range(0, 10)
+                .mapToObj(i -> executor.async(started::incrementAndGet, source.token()))
+                .toList();
+
+        assertThat(source.cancel()).isTrue();
+        release.countDown();
+
+        assertThat(blocking.await(Duration.ofSeconds(5))).isEqualTo(1);
+        assertThat(executor.async(() -> 0).await(Duration.ofSeconds(5))).isEqualTo(0);
+        assertThat(started.get()).isEqualTo(0);
+
+        for (final Promise<Integer> promise : queued) {
+            Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                    .isInstanceOf(CancellationException.class);
+        }
+    }
+
+    @Test
+    public void shouldInterruptRunningTasks() throws InterruptedException {
+        final Executor executor = givenAnExecutor();
+        final CancellationSource source = CancellationHelper.create();
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean(false);
+
+        final Promise<Integer> running = executor.async(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            }
+            return 1;
+        }, source.token());
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        source.cancel();
+
+        await().atMost(5, TimeUnit.SECONDS).until(interrupted::get);
+        Assertions.assertThatThrownBy(() -> running.await(Duration.ofSeconds(5)))
+                .isInstanceOf(CancellationException.class);
+    }
+
+    @Test
+    public void shouldNotSubmitTasksWhenAlreadyCancelled() {
+        final Executor executor = givenAnExecutor();
+        final CancellationSource source = CancellationHelper.create();
+        final AtomicBoolean started = new AtomicBoolean(false);
+
+        source.cancel();
+
+        final Promise<?> promise = executor.async(() -> started.set(true), source.token());
+
+        Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                .isInstanceOf(CancellationException.class);
+        assertThat(started.get()).isFalse();
+    }
+
+    @Test
+    public void shouldCancelAfterADelay() {
+        final Executor executor = givenAnExecutor();
+        final CancellationSource source = CancellationHelper.create().cancelAfter(Duration.ofMillis(100));
+
+        final Promise<Integer> promise = executor.async(() -> {
+            Thread.sleep(10_000);
+            return 1;
+        }, source.token());
+
+        Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                .isInstanceOf(CancellationException.class);
+        assertThat(source.token().isCancelled()).isTrue();
+    }
+
+    @Test
+    public void shouldNotCancelAfterADelayOnTheTimerThread() throws InterruptedException {
+        final CancellationSource source = CancellationHelper.create();
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final AtomicBoolean onTimer = new AtomicBoolean(true);
+
+        source.token().onCancel(() -> {
+            onTimer.set(Thread.currentThread().getName().equals("hpas-timer"));
+            cancelled.countDown();
+        });
+        source.cancelAfter(Duration.ofMillis(50));
+
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(onTimer.get()).isFalse();
+    }
+
+    @Test
+    public void shouldNotActivateUnregisteredActions() {
+        final CancellationSource source = CancellationHelper.create();
+        final AtomicInteger activated = new AtomicInteger(0);
+
+        source.token().onCancel(activated::incrementAndGet);
+        source.token().onCancel(activated::incrementAndGet).unregister();
+
+        assertThat(source.cancel()).isTrue();
+        assertThat(source.cancel()).isFalse();
+        assertThat(activated.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldActivateActionsRegisteredAfterCancellation() {
+        final CancellationSource source = CancellationHelper.create();
+        final AtomicInteger activated = new AtomicInteger(0);
+
+        source.cancel();
+        source.token().onCancel(activated::incrementAndGet);
+
+        assertThat(activated.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldKeepCompletedTasksAlive() throws Throwable {
+        final Executor executor = givenAnExecutor();
+        final CancellationSource source = CancellationHelper.create();
+
+        final Promise<Integer> promise = executor.async(() -> 1, source.token());
+
+        assertThat(promise.await(Duration.ofSeconds(5))).isEqualTo(1);
+        source.cancel();
+        assertThat(promise.await(Duration.ofSeconds(5))).isEqualTo(1);
+    }
+
+    private Executor givenAnExecutor() {
+        return ExecutorHelper.create(Executors.newSingleThreadExecutor());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.exception.RejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedExecutorTest {
+
+    @Test
+    public void shouldRejectTasksOverTheLimit() throws Throwable {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Executor executor = ExecutorHelper.bounded(Executors.newSingleThreadExecutor(), 2);
+
+        final Promise<Integer> running = executor.async(() -> {
+            latch.await();
+            return 1;
+        });
+        final Promise<Integer> queued = executor.async(() -> 2);
+        final Promise<Integer> rejected = executor.async(() -> 3);
+
+        Assertions.assertThatThrownBy(() -> rejected.await(Duration.ZERO))
+                .isSameAs(RejectedException.INSTANCE);
+        assertThat(RejectedException.INSTANCE.getStackTrace()).isEmpty();
+
+        latch.countDown();
+
+        assertThat(running.await(Duration.ofSeconds(5))).isEqualTo(1);
+        assertThat(queued.await(Duration.ofSeconds(5))).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldAdmitTasksWhenSlotsAreFreed() throws Throwable {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Executor executor = ExecutorHelper.bounded(Executors.newSingleThreadExecutor(), 1);
+
+        final Promise<Integer> running = executor.async(() -> {
+            latch.await();
+            return 1;
+        });
+
+        assertThat(executor.async(() -> 2).getFuture().isDone()).isTrue();
+
+        latch.countDown();
+        running.await(Duration.ofSeconds(5));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> ExecutorHelper.await(executor.async(() -> 2), Duration.ofSeconds(5)).isSuccess());
+    }
+
+    @Test
+    public void shouldFreeTheSlotOfACancelledQueuedTask() throws Throwable {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Executor executor = ExecutorHelper.bounded(Executors.newSingleThreadExecutor(), 2);
+
+        final Promise<Integer> running = executor.async(() -> {
+            latch.await();
+            return 1;
+        });
+
+        executor.async(() -> 2).cancel();
+        latch.countDown();
+        running.await(Duration.ofSeconds(5));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> ExecutorHelper.await(executor.async(() -> 3), Duration.ofSeconds(5)).isSuccess()
+                && ExecutorHelper.await(executor.async(() -> 4), Duration.ofSeconds(5)).isSuccess());
+    }
+
+    @Test
+    public void shouldParkASubmittingVirtualThread() throws Throwable {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Executor executor = ExecutorHelper.bounded(Executors.newSingleThreadExecutor(), 1, true);
+        final AtomicReference<Promise<Integer>> parked = new AtomicReference<>();
+
+        final Promise<Integer> running = executor.async(() -> {
+            latch.await();
+            return 1;
+        });
+
+        final Thread submitter = Thread.ofVirtual().start(() -> parked.set(executor.async(() -> 2)));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> submitter.getState() == Thread.State.WAITING);
+        assertThat(parked.get()).isNull();
+
+        latch.countDown();
+        submitter.join();
+
+        assertThat(running.await(Duration.ofSeconds(5))).isEqualTo(1);
+        assertThat(parked.get().await(Duration.ofSeconds(5))).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRejectAPlatformThreadEvenWhenParkingIsEnabled() {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Executor executor = ExecutorHelper.bounded(Executors.newSingleThreadExecutor(), 1, true);
+
+        executor.async(() -> {
+            latch.await();
+            return 1;
+        });
+
+        Assertions.assertThatThrownBy(() -> executor.async(() -> 2).await(Duration.ZERO))
+                .isInstanceOf(RejectedException.class);
+
+        latch.countDown();
+    }
+}
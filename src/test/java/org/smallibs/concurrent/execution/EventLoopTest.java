@@ -0,0 +1,158 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution;
+
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.data.Try;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EventLoopTest {
+
+    @Test
+    public void shouldRetrieveAValue() throws Throwable {
+        try (EventLoopGroup group = ExecutorHelper.eventLoops(2)) {
+            assertThat(group.async(() -> 1).map(i -> i + 1).await(Duration.ofSeconds(5))).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void shouldFailWhenAFunctionThrows() {
+        try (EventLoopGroup group = ExecutorHelper.eventLoops(1)) {
+            final Function<Integer, Promise<Integer>> failing = __ -> {
+                throw new IllegalStateException();
+            };
+            final Promise<Integer> flatmapped = group.async(() -> 1).flatmap(failing);
+            final Promise<Integer> filtered = group.async(() -> 1).filter(__ -> {
+                throw new IllegalArgumentException();
+            }).self();
+
+            assertThatThrownBy(() -> flatmapped.await(Duration.ofSeconds(5))).isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> filtered.await(Duration.ofSeconds(5))).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    public void shouldKeepTasksStartedFromALoopOnThisLoop() throws Throwable {
+        try (EventLoopGroup group = ExecutorHelper.eventLoops(4)) {
+            final Promise<Boolean> sameLoop = group.async(() -> {
+                final Thread loop = Thread.currentThread();
+                return group.async(() -> Thread.currentThread() == loop);
+            }).flatmap(p -> p);
+
+            assertThat(sameLoop.await(Duration.ofSeconds(5))).isTrue();
+        }
+    }
+
+    @Test
+    public void shouldSelectTheSameLoopForAKey() throws Throwable {
+        try (EventLoopGroup group = ExecutorHelper.eventLoops(4)) {
+            final Thread first = group.loop("connection").async(Thread::currentThread).await(Duration.ofSeconds(5));
+            final Thread second = group.loop("connection").async(Thread::currentThread).await(Duration.ofSeconds(5));
+
+            assertThat(group.size()).isEqualTo(4);
+            assertThat(second).isSameAs(first);
+        }
+    }
+
+    @Test
+    public void shouldActivateCallbacksOnTheLoop() throws Throwable {
+        try (EventLoopGroup group = ExecutorHelper.eventLoops(1)) {
+            final Thread loop = group.async(Thread::currentThread).await(Duration.ofSeconds(5));
+            final AtomicReference<Thread> activated = new AtomicReference<>();
+
+            // Registered by the test thread i.e. handed off to the loop
+            group.async(() -> 1).onComplete(__ -> activated.set(Thread.currentThread())).await(Duration.ofSeconds(5));
+
+            assertThat(group.async(activated::get).await(Duration.ofSeconds(5))).isSameAs(loop);
+        }
+    }
+
+    @Test
+    public void shouldAwaitAPromiseSolvedByAnotherLoop() throws Throwable {
+        try (EventLoopGroup group = ExecutorHelper.eventLoops(2)) {
+            final Executor first = group.loop(0);
+            final Executor second = group.loop(1);
+
+            assertThat(first.async(() -> 1).flatmap(i -> second.async(() -> i + 1)).await(Duration.ofSeconds(5))).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void shouldNotAwaitFromTheLoop() throws Throwable {
+        try (EventLoopGroup group = ExecutorHelper.eventLoops(1)) {
+            final Promise<Integer> awaiting = group.async(() -> group.async(() -> 1).getFuture().get());
+
+            assertThatThrownBy(() -> awaiting.await(Duration.ofSeconds(5))).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    public void shouldTimeoutWhenGettingAPendingPromise() throws Throwable {
+        try (EventLoopGroup group = ExecutorHelper.eventLoops(1)) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            final Promise<Boolean> pending = group.async(() -> latch.await(5, TimeUnit.SECONDS));
+
+            assertThatThrownBy(() -> pending.getFuture().get(10, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+            latch.countDown();
+
+            assertThat(pending.getFuture().get()).isTrue();
+        }
+    }
+
+    @Test
+    public void shouldNotOverflowTheStackWithALongChain() throws Throwable {
+        try (EventLoopGroup group = ExecutorHelper.eventLoops(1)) {
+            final Promise<Integer> chain = group.async(() -> {
+                Promise<Integer> promise = group.async(() -> 0);
+                for (int i = 0; i < 100_000; i++) {
+                    promise = promise.map(v -> v + 1);
+                }
+                return promise;
+            }).flatmap(p -> p);
+
+            assertThat(chain.await(Duration.ofSeconds(10))).isEqualTo(100_000);
+        }
+    }
+
+    @Test
+    public void shouldRejectTasksOnceClosed() {
+        final EventLoopGroup group = ExecutorHelper.eventLoops(1);
+
+        group.close();
+
+        assertThatThrownBy(() -> group.async(() -> 1).await(Duration.ofSeconds(5))).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    public void shouldRunOrRejectTasksSubmittedWhileClosing() throws Throwable {
+        for (int i = 0; i < 1_000; i++) {
+            final EventLoopGroup group = ExecutorHelper.eventLoops(1);
+            final CompletableFuture<Promise<Integer>> submission = CompletableFuture.supplyAsync(() -> group.async(() -> 1));
+
+            group.close();
+
+            final Try<Integer> response = Try.handle(() -> submission.get().await(Duration.ofSeconds(5)));
+
+            assertThat(response.<Boolean>fold(v -> v == 1, t -> t instanceof RejectedExecutionException)).isTrue();
+        }
+    }
+}
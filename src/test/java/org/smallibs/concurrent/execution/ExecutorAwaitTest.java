@@ -0,0 +1,99 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.data.Try;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExecutorAwaitTest {
+
+    @Test
+    public void shouldAwaitANestedTaskOnASingleThreadExecutor() throws Throwable {
+        final Executor executor = ExecutorHelper.create(Executors.newSingleThreadExecutor());
+
+        final Promise<Integer> promise = executor.async(() ->
+                get(executor.async(() -> 1).map(i -> i + 1))
+        );
+
+        assertThat(promise.await(Duration.ofSeconds(5))).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldAwaitDeeplyNestedTasksOnASingleThreadExecutor() throws Throwable {
+        final Executor executor = ExecutorHelper.create(Executors.newSingleThreadExecutor());
+
+        assertThat(nested(executor, 100).await(Duration.ofSeconds(5))).isEqualTo(100);
+    }
+
+    @Test
+    public void shouldFailFastOnSelfAwait() {
+        final Executor executor = ExecutorHelper.create(Executors.newSingleThreadExecutor());
+        final AtomicReference<Promise<Integer>> self = new AtomicReference<>();
+        final CountDownLatch published = new CountDownLatch(1);
+
+        final Promise<Integer> promise = executor.async(() -> {
+            published.await();
+            return get(self.get());
+        });
+
+        self.set(promise);
+        published.countDown();
+
+        Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void shouldCompensateABlockedForkJoinWorker() throws Throwable {
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        final Executor executor = ExecutorHelper.forkJoin(pool);
+        final SolvablePromise<Integer> signal = new SolvablePromise<>();
+        final CountDownLatch blocked = new CountDownLatch(1);
+
+        final Promise<Integer> waiting = executor.async(() -> {
+            blocked.countDown();
+            return get(signal);
+        });
+
+        blocked.await();
+
+        // Only runnable by a spare worker activated by the managed blocker
+        executor.async(() -> signal.solve(Try.success(1)));
+
+        assertThat(waiting.await(Duration.ofSeconds(5))).isEqualTo(1);
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private static <T> T get(Promise<T> promise) throws Exception {
+        return ExecutorHelper.await(promise, Duration.ofSeconds(5)).orElseThrow(t -> t instanceof Exception e ? e : new Exception(t));
+    }
+
+    private static Promise<Integer> nested(Executor executor, int depth) {
+        return executor.async(() -> {
+            if (depth == 0) {
+                return 0;
+            }
+            return get(nested(executor, depth - 1)) + 1;
+        });
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution;
+
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.PromiseHelper;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ForkJoinExecutorTest {
+
+    @Test
+    public void shouldRetrieveAValue() throws Throwable {
+        final Executor executor = ExecutorHelper.forkJoin(new ForkJoinPool(2));
+
+        assertThat(executor.async(() -> 1).await(Duration.ofSeconds(5))).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldPushTasksStartedFromAWorkerOntoItsLocalDeque() throws Throwable {
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        final Executor executor = ExecutorHelper.forkJoin(pool);
+
+        final Promise<Integer> queued = executor.async(() -> {
+            final int before = ForkJoinTask.getQueuedTaskCount();
+            executor.async(() -> 0);
+            return ForkJoinTask.getQueuedTaskCount() - before;
+        });
+
+        assertThat(queued.await(Duration.ofSeconds(5))).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRunContinuationsOnTheWorker() throws Throwable {
+        final Executor executor = ExecutorHelper.forkJoin(new ForkJoinPool(2));
+
+        final Promise<Boolean> continuation = executor.async(() ->
+                executor.async(() -> 1).map(__ -> Thread.currentThread() instanceof ForkJoinWorkerThread)
+        ).flatmap(p -> p);
+
+        assertThat(continuation.await(Duration.ofSeconds(5))).isTrue();
+    }
+
+    @Test
+    public void shouldComputeARecursiveJob() throws Throwable {
+        final Executor executor = ExecutorHelper.forkJoin(new ForkJoinPool(4));
+
+        assertThat(sum(executor, 0, 1_000_000).await(Duration.ofSeconds(30))).isEqualTo(999_999L * 1_000_000L / 2);
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private static Promise<Long> sum(Executor executor, long from, long to) {
+        if (to - from <= 10_000) {
+            return executor.async(() -> {
+                long sum = 0;
+                for (long i = from; i < to; i++) {
+                    sum += i;
+                }
+                return sum;
+            });
+        }
+
+        final long middle = (from + to) / 2;
+
+        return executor.async(() -> PromiseHelper.all(List.of(sum(executor, from, middle), sum(executor, middle, to))))
+                .flatmap(p -> p)
+                .map(sums -> sums.get(0) + sums.get(1));
+    }
+}
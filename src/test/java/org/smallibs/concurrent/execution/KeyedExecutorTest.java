@@ -0,0 +1,142 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution;
+
+import com.jayway.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.PromiseHelper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class KeyedExecutorTest {
+
+    @Test
+    public void shouldRunTasksOfAKeyInSubmissionOrder() throws Throwable {
+        final KeyedExecutor<String> executor = ExecutorHelper.keyed(Executors.newFixedThreadPool(4));
+        final List<Integer> executed = new ArrayList<>();
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger overlaps = new AtomicInteger(0);
+
+        Promise<?> last = null;
+        for (int i = 0; i < 10_000; i++) {
+            final int index = i;
+            last = executor.async("key", () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                executed.add(index);
+                running.decrementAndGet();
+            });
+        }
+
+        last.await(Duration.ofSeconds(10));
+
+        assertThat(overlaps.get()).isEqualTo(0);
+        assertThat(executed).containsExactlyElementsOf(IntStream.range(0, 10_000).boxed().toList());
+    }
+
+    @Test
+    public void shouldRunTasksOfDifferentKeysInParallel() throws Throwable {
+        final KeyedExecutor<String> executor = ExecutorHelper.keyed(Executors.newFixedThreadPool(2));
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        final Promise<Boolean> waiting = executor.async("first", () -> latch.await(5, TimeUnit.SECONDS));
+        executor.async("second", latch::countDown);
+
+        assertThat(waiting.await(Duration.ofSeconds(5))).isTrue();
+    }
+
+    @Test
+    public void shouldRunTheNextTaskAfterAFailure() throws Throwable {
+        final KeyedExecutor<String> executor = ExecutorHelper.keyed(Executors.newFixedThreadPool(2));
+
+        final Promise<Integer> failed = executor.async("key", () -> {
+            throw new IllegalArgumentException();
+        });
+        final Promise<Integer> next = executor.async("key", () -> 1);
+
+        assertThat(next.await(Duration.ofSeconds(5))).isEqualTo(1);
+        assertThat(failed.getFuture().isDone()).isTrue();
+    }
+
+    @Test
+    public void shouldSkipACancelledTask() throws Throwable {
+        final KeyedExecutor<String> executor = ExecutorHelper.keyed(Executors.newFixedThreadPool(2));
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger executed = new AtomicInteger(0);
+
+        executor.async("key", () -> latch.await(5, TimeUnit.SECONDS));
+        executor.async("key", executed::incrementAndGet).cancel();
+        final Promise<Integer> next = executor.async("key", () -> 1);
+
+        latch.countDown();
+
+        assertThat(next.await(Duration.ofSeconds(5))).isEqualTo(1);
+        assertThat(executed.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldFailTasksRejectedByTheExecutorService() {
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        final KeyedExecutor<String> executor = ExecutorHelper.keyed(executorService);
+
+        executorService.shutdown();
+
+        final Promise<Integer> rejected = executor.async("key", () -> 1);
+
+        assertThatThrownBy(() -> rejected.await(Duration.ofSeconds(5))).isInstanceOf(RejectedExecutionException.class);
+        assertThat(executor.activeKeys()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldFailQueuedTasksWhenTheNextStepIsRejected() throws Throwable {
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        final KeyedExecutor<String> executor = ExecutorHelper.keyed(executorService);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        final Promise<Boolean> running = executor.async("key", () -> latch.await(5, TimeUnit.SECONDS));
+        final Promise<Integer> queued = executor.async("key", () -> 1);
+
+        executorService.shutdown();
+        latch.countDown();
+
+        assertThat(running.await(Duration.ofSeconds(5))).isTrue();
+        assertThatThrownBy(() -> queued.await(Duration.ofSeconds(5))).isInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(() -> executor.async("key", () -> 2).await(Duration.ofSeconds(5)))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    public void shouldReleaseIdleKeys() throws Throwable {
+        final KeyedExecutor<Integer> executor = ExecutorHelper.keyed(Executors.newFixedThreadPool(4));
+
+        final Promise<?>[] promises = IntStream.range(0, 100_000)
+                .mapToObj(i -> executor.async(i % 1_000, () -> i))
+                .toArray(Promise[]::new);
+
+        PromiseHelper.join(promises).await(Duration.ofSeconds(10));
+
+        Awaitility.await()
+                .atMost(new com.jayway.awaitility.Duration(5, TimeUnit.SECONDS))
+                .until(() -> executor.activeKeys() == 0);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution;
+
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.promise.Promise;
+import org.smallibs.concurrent.promise.PromiseHelper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitedExecutorTest {
+
+    @Test
+    public void shouldStartABurstImmediately() throws Throwable {
+        final RateLimitedExecutor executor = ExecutorHelper.rateLimited(givenAnExecutor(), 1, 5);
+        final List<Promise<Integer>> promises = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            final int value = i;
+            promises.add(executor.async(() -> value));
+        }
+
+        assertThat(PromiseHelper.all(promises).await(Duration.ofSeconds(1))).containsExactly(0, 1, 2, 3, 4);
+        assertThat(executor.metrics().throttled()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldLimitTheSustainedRate() throws Throwable {
+        final RateLimitedExecutor executor = ExecutorHelper.rateLimited(givenAnExecutor(), 20, 1);
+        final List<Promise<Integer>> promises = new ArrayList<>();
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < 6; i++) {
+            final int value = i;
+            promises.add(executor.async(() -> value));
+        }
+
+        assertThat(executor.metrics().queueDepth()).isEqualTo(5);
+        assertThat(PromiseHelper.all(promises).await(Duration.ofSeconds(5))).containsExactly(0, 1, 2, 3, 4, 5);
+
+        // 5 tokens at 50ms each
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(240));
+
+        final RateLimitedExecutor.Metrics metrics = executor.metrics();
+        assertThat(metrics.queueDepth()).isEqualTo(0);
+        assertThat(metrics.throttled()).isEqualTo(5);
+        assertThat(metrics.throttledTime()).isGreaterThanOrEqualTo(Duration.ofMillis(5 * 50 * 3));
+    }
+
+    @Test
+    public void shouldNotHoldAThreadWhileThrottling() throws Throwable {
+        final Executor underlying = givenAnExecutor();
+        final RateLimitedExecutor executor = ExecutorHelper.rateLimited(underlying, 1, 1);
+
+        executor.async(() -> 1);
+        final Promise<Integer> throttled = executor.async(() -> 2);
+
+        // The single thread of the underlying executor remains available
+        assertThat(underlying.async(() -> 3).await(Duration.ofMillis(500))).isEqualTo(3);
+        assertThat(throttled.getFuture().isDone()).isFalse();
+        assertThat(throttled.await(Duration.ofSeconds(5))).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotStartThrottledTasksFromTheTimerThread() throws Throwable {
+        final List<String> submitters = new CopyOnWriteArrayList<>();
+        final Executor underlying = ExecutorHelper.create(new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                submitters.add(Thread.currentThread().getName());
+                super.execute(command);
+            }
+        });
+        final RateLimitedExecutor executor = ExecutorHelper.rateLimited(underlying, 20, 1);
+
+        executor.async(() -> 1);
+        final Promise<Integer> throttled = executor.async(() -> 2);
+
+        assertThat(throttled.await(Duration.ofSeconds(5))).isEqualTo(2);
+        assertThat(submitters).hasSize(2).doesNotContain("hpas-timer");
+    }
+
+    @Test
+    public void shouldDropACancelledQueuedTask() throws Throwable {
+        final RateLimitedExecutor executor = ExecutorHelper.rateLimited(givenAnExecutor(), 10, 1);
+        final AtomicInteger started = new AtomicInteger(0);
+
+        executor.async(started::incrementAndGet);
+        executor.async(started::incrementAndGet).cancel();
+        final Promise<Integer> last = executor.async(started::incrementAndGet);
+
+        assertThat(last.await(Duration.ofSeconds(5))).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCancelAStartedTask() throws Throwable {
+        final RateLimitedExecutor executor = ExecutorHelper.rateLimited(givenAnExecutor(), 10, 1);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        final Promise<Boolean> running = executor.async(() -> {
+            latch.countDown();
+            Thread.sleep(10_000);
+            return true;
+        });
+
+        latch.await();
+        running.cancel();
+
+        assertThat(executor.async(() -> false).await(Duration.ofSeconds(5))).isFalse();
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private static Executor givenAnExecutor() {
+        return ExecutorHelper.create(Executors.newSingleThreadExecutor());
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.execution;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.promise.Promise;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ScopeTest {
+
+    @Test
+    public void shouldJoinAllChildren() throws Throwable {
+        final Executor executor = ExecutorHelper.create(Executors.newFixedThreadPool(2));
+
+        try (Scope scope = executor.scope()) {
+            final Promise<Integer> a = scope.async(() -> 1);
+            final Promise<Integer> b = scope.async(() -> 2);
+
+            scope.join(Duration.ofSeconds(5));
+
+            assertThat(a.await(Duration.ofSeconds(5)) + b.await(Duration.ofSeconds(5))).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void shouldCancelTheOtherChildrenOnFailure() {
+        final Executor executor = ExecutorHelper.create(Executors.newFixedThreadPool(2));
+        final AtomicBoolean interrupted = new AtomicBoolean(false);
+
+        Assertions.assertThatThrownBy(() -> {
+            try (Scope scope = executor.scope()) {
+                scope.async(() -> {
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.set(true);
+                        throw e;
+                    }
+                });
+                scope.async(() -> {
+                    throw new IOException();
+                });
+
+                scope.join(Duration.ofSeconds(5));
+            }
+        }).isInstanceOf(IOException.class).satisfies(e -> assertThat(e.getSuppressed()).isEmpty());
+
+        assertThat(interrupted.get()).isTrue();
+    }
+
+    @Test
+    public void shouldNotCancelTheFailingChild() {
+        final Executor executor = ExecutorHelper.create(Executors.newFixedThreadPool(2));
+        final AtomicReference<Promise<Integer>> failing = new AtomicReference<>();
+
+        Assertions.assertThatThrownBy(() -> {
+            try (Scope scope = executor.scope()) {
+                scope.async(() -> Thread.sleep(10_000));
+                failing.set(scope.async(() -> {
+                    throw new IOException("boom");
+                }));
+
+                scope.join(Duration.ofSeconds(5));
+            }
+        }).isInstanceOf(IOException.class);
+
+        Assertions.assertThatThrownBy(() -> failing.get().await(Duration.ofSeconds(5)))
+                .isInstanceOf(IOException.class)
+                .hasMessage("boom");
+    }
+
+    @Test
+    public void shouldReportTheOtherFailuresAsSuppressed() {
+        final Executor executor = ExecutorHelper.create(Executors.newFixedThreadPool(2));
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        Assertions.assertThatThrownBy(() -> {
+            try (Scope scope = executor.scope()) {
+                for (int i = 0; i < 2; i++) {
+                    scope.async(() -> {
+                        latch.countDown();
+                        // Not interruptible
+                        while (latch.getCount() > 0) {
+                            Thread.onSpinWait();
+                        }
+                        throw new IOException();
+                    });
+                }
+
+                scope.join(Duration.ofSeconds(5));
+            }
+        }).isInstanceOf(IOException.class).satisfies(e -> assertThat(e.getSuppressed()).hasSize(1));
+    }
+
+    @Test
+    public void shouldCancelAndWaitForChildrenOnClose() {
+        final Executor executor = ExecutorHelper.create(Executors.newFixedThreadPool(2));
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean terminated = new AtomicBoolean(false);
+        final Promise<Integer> child;
+
+        try (Scope scope = executor.scope()) {
+            child = scope.async(() -> {
+                try {
+                    started.countDown();
+                    Thread.sleep(10_000);
+                    return 1;
+                } finally {
+                    terminated.set(true);
+                }
+            });
+
+            Assertions.assertThatThrownBy(() -> {
+                started.await();
+                scope.join(Duration.ofMillis(50));
+            }).isInstanceOf(TimeoutException.class);
+        }
+
+        assertThat(child.getFuture().isCancelled()).isTrue();
+        assertThat(terminated.get()).isTrue();
+    }
+
+    @Test
+    public void shouldDropQueuedChildrenOnClose() {
+        final Executor executor = ExecutorHelper.create(Executors.newSingleThreadExecutor());
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger(0);
+
+        try (Scope scope = executor.scope()) {
+            scope.async(() -> {
+                started.countDown();
+                Thread.sleep(10_000);
+                return 1;
+            });
+
+            for (int i = 0; i < 10; i++) {
+                scope.async(calls::incrementAndGet);
+            }
+
+            started.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+
+        assertThat(calls.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldRejectTasksOnceClosed() {
+        final Scope scope = ExecutorHelper.create(Executors.newSingleThreadExecutor()).scope();
+
+        scope.close();
+
+        Assertions.assertThatThrownBy(() -> scope.async(() -> 1))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void shouldWorkWithVirtualThreads() throws Throwable {
+        final Executor executor = ExecutorHelper.create(Executors.newVirtualThreadPerTaskExecutor());
+        final AtomicInteger sum = new AtomicInteger(0);
+
+        try (Scope scope = executor.scope()) {
+            for (int i = 0; i < 10_000; i++) {
+                final int value = i;
+                scope.async(() -> sum.addAndGet(value));
+            }
+
+            scope.join();
+        }
+
+        assertThat(sum.get()).isEqualTo(10_000 * 9_999 / 2);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.smallibs.concurrent.execution.EventLoopGroup;
+import org.smallibs.concurrent.execution.ExecutorHelper;
+import org.smallibs.concurrent.promise.impl.ConfinedPromise;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.data.Try;
+import org.smallibs.util.FunctionWithError;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares a confined promise and a solvable promise on an event loop thread. Each
+ * operation creates a promise, maps it, registers a callback and solves it. Rounds of
+ * both implementations are interleaved and the first ones are dropped as warm-up.
+ * <p>
+ * Run with: mvn test -Dtest=ConfinedPromiseBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ConfinedPromiseBenchmarkTest {
+
+    private static final int ITERATIONS = 2_000_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 15;
+    private static final FunctionWithError<Integer, Integer> FUNCTION = i -> i + 1;
+
+    @Test
+    public void shouldCompareConfinedAndSolvablePromises() throws Throwable {
+        try (EventLoopGroup group = ExecutorHelper.eventLoops(1)) {
+            final double[][] measures = group.async(() -> {
+                final ConfinedPromise.Owner owner = new ConfinedPromise.Owner(Thread.currentThread(), Runnable::run);
+                final double[] confined = new double[ROUNDS];
+                final double[] solvable = new double[ROUNDS];
+
+                for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+                    final double confinedRound = measureConfined(owner);
+                    final double solvableRound = measureSolvable();
+
+                    if (round >= 0) {
+                        confined[round] = confinedRound;
+                        solvable[round] = solvableRound;
+                    }
+                }
+
+                return new double[][]{confined, solvable};
+            }).await(Duration.ofMinutes(5));
+
+            report("ConfinedPromise", measures[0]);
+            report("SolvablePromise", measures[1]);
+        }
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private static double measureConfined(ConfinedPromise.Owner owner) {
+        final long[] sink = {0};
+        final Consumer<Try<Integer>> consumer = response -> sink[0] += response.fold(v -> v, t -> 0);
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            final ConfinedPromise<Integer> promise = new ConfinedPromise<>(owner);
+            promise.map(FUNCTION).onComplete(consumer);
+            promise.solve(Try.success(i));
+        }
+
+        return elapsed(start, sink[0]);
+    }
+
+    private static double measureSolvable() {
+        final long[] sink = {0};
+        final Consumer<Try<Integer>> consumer = response -> sink[0] += response.fold(v -> v, t -> 0);
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            final SolvablePromise<Integer> promise = new SolvablePromise<>();
+            promise.map(FUNCTION).onComplete(consumer);
+            promise.solve(Try.success(i));
+        }
+
+        return elapsed(start, sink[0]);
+    }
+
+    private static double elapsed(long start, long sink) {
+        final long elapsed = System.nanoTime() - start;
+
+        // Every callback has been activated synchronously on the loop thread
+        assertThat(sink).isEqualTo((long) ITERATIONS * (ITERATIONS + 1) / 2);
+
+        return (double) elapsed / ITERATIONS;
+    }
+
+    private static void report(String name, double[] measures) {
+        final double[] sorted = measures.clone();
+        Arrays.sort(sorted);
+
+        System.out.printf("%s: best %.1f ns/op, median %.1f ns/op%n", name, sorted[0], sorted[sorted.length / 2]);
+    }
+}
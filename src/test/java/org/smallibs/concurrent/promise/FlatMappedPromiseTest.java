@@ -12,10 +12,14 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.smallibs.concurrent.execution.Executor;
 import org.smallibs.concurrent.execution.ExecutorHelper;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.data.Try;
 import org.smallibs.exception.FilterException;
 import org.smallibs.type.HK;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -218,6 +222,38 @@ public class FlatMappedPromiseTest {
                 .isInstanceOf(FilterException.class);
     }
 
+    @Test
+    public void shouldApplyALongChainWithoutStackOverflow() throws Exception {
+        final SolvablePromise<Integer> integerPromise = new SolvablePromise<>();
+
+        Promise<Integer> promise = integerPromise;
+        for (int i = 0; i < 100_000; i++) {
+            promise = promise.flatmap(v -> PromiseHelper.success(v + 1)).map(v -> v + 1);
+        }
+
+        integerPromise.solve(Try.success(0));
+
+        assertThat(promise.getFuture().get(5, TimeUnit.SECONDS)).isEqualTo(200_000);
+    }
+
+    @Test
+    public void shouldApplyALongChainOfPendingPromisesWithoutStackOverflow() throws Exception {
+        final SolvablePromise<Integer> integerPromise = new SolvablePromise<>();
+        final List<SolvablePromise<Integer>> inner = new ArrayList<>();
+
+        Promise<Integer> promise = integerPromise;
+        for (int i = 0; i < 100_000; i++) {
+            final SolvablePromise<Integer> solvablePromise = new SolvablePromise<>();
+            inner.add(solvablePromise);
+            promise = promise.flatmap(v -> solvablePromise.map(w -> v + w));
+        }
+
+        inner.forEach(p -> p.solve(Try.success(1)));
+        integerPromise.solve(Try.success(0));
+
+        assertThat(promise.getFuture().get(5, TimeUnit.SECONDS)).isEqualTo(100_000);
+    }
+
     private Executor givenAnExecutor() {
         return ExecutorHelper.create(Executors.newSingleThreadExecutor());
     }
@@ -12,6 +12,8 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.smallibs.concurrent.execution.Executor;
 import org.smallibs.concurrent.execution.ExecutorHelper;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.data.Try;
 import org.smallibs.exception.FilterException;
 
 import java.time.Duration;
@@ -19,6 +21,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.smallibs.concurrent.execution.ExecutorHelper.await;
@@ -218,6 +221,87 @@ public class MappedPromiseTest {
                 .isInstanceOf(FilterException.class);
     }
 
+    @Test
+    public void shouldApplyFusedStagesAndSolveIntermediateOnes() throws Exception {
+        final SolvablePromise<Integer> integerPromise = new SolvablePromise<>();
+
+        final Promise<Integer> first = integerPromise.map(i -> i + 1);
+        final Promise<Integer> second = first.filter(i -> i == 2).self();
+        final Promise<String> third = second.biMap(i -> "ok" + i, t -> "ko");
+
+        integerPromise.solve(Try.success(1));
+
+        assertThat(first.getFuture().get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        assertThat(second.getFuture().get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        assertThat(third.getFuture().get(5, TimeUnit.SECONDS)).isEqualTo("ok2");
+    }
+
+    @Test
+    public void shouldApplyEachStageOnceWhenFused() throws Exception {
+        final AtomicInteger anInteger = new AtomicInteger(0);
+        final SolvablePromise<Integer> integerPromise = new SolvablePromise<>();
+
+        final Promise<Integer> first = integerPromise.map(i -> anInteger.incrementAndGet());
+        final Promise<Integer> second = first.map(i -> i + 1);
+        final Promise<Integer> other = first.map(i -> i + 2);
+
+        integerPromise.solve(Try.success(1));
+
+        assertThat(second.getFuture().get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        assertThat(other.getFuture().get(5, TimeUnit.SECONDS)).isEqualTo(3);
+        assertThat(first.map(i -> i + 3).getFuture().get(5, TimeUnit.SECONDS)).isEqualTo(4);
+        assertThat(anInteger.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotifyAnObservedIntermediateStage() throws Exception {
+        final AtomicInteger anInteger = new AtomicInteger(0);
+        final SolvablePromise<Integer> integerPromise = new SolvablePromise<>();
+
+        final Promise<Integer> first = integerPromise.map(i -> i + 1);
+        final Promise<Integer> second = first.map(i -> i + 1);
+
+        first.onSuccess(anInteger::set);
+        integerPromise.solve(Try.success(1));
+
+        assertThat(second.getFuture().get(5, TimeUnit.SECONDS)).isEqualTo(3);
+        assertThat(anInteger.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotApplyACancelledFusedStage() throws Exception {
+        final AtomicBoolean applied = new AtomicBoolean(false);
+        final SolvablePromise<Integer> integerPromise = new SolvablePromise<>();
+
+        final Promise<Integer> first = integerPromise.map(i -> i + 1);
+        final Promise<Integer> cancelled = first.map(i -> {
+            applied.set(true);
+            return i * 2;
+        });
+        final Promise<Integer> other = first.map(i -> i + 1);
+
+        cancelled.cancel();
+        integerPromise.solve(Try.success(1));
+
+        assertThat(other.getFuture().get(5, TimeUnit.SECONDS)).isEqualTo(3);
+        assertThat(cancelled.getFuture().isCancelled()).isTrue();
+        assertThat(applied.get()).isFalse();
+    }
+
+    @Test
+    public void shouldApplyALongChainOfFusedStages() throws Exception {
+        final SolvablePromise<Integer> integerPromise = new SolvablePromise<>();
+
+        Promise<Integer> promise = integerPromise;
+        for (int i = 0; i < 100_000; i++) {
+            promise = promise.map(v -> v + 1);
+        }
+
+        integerPromise.solve(Try.success(0));
+
+        assertThat(promise.getFuture().get(5, TimeUnit.SECONDS)).isEqualTo(100_000);
+    }
+
     private Executor givenAnExecutor() {
         return ExecutorHelper.create(Executors.newSingleThreadExecutor());
     }
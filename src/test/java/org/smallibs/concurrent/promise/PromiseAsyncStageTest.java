@@ -0,0 +1,187 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.execution.ExecutorHelper;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.data.Try;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PromiseAsyncStageTest {
+
+    @Test
+    public void shouldMapOnTheTargetExecutor() throws Throwable {
+        final Executor io = givenAnExecutor("io");
+        final Executor cpu = givenAnExecutor("cpu");
+
+        final Promise<String> promise = io.async(() -> 1).mapAsync(__ -> Thread.currentThread().getName(), cpu);
+
+        assertThat(promise.await(Duration.ofSeconds(5))).isEqualTo("cpu");
+    }
+
+    @Test
+    public void shouldFlatmapOnTheTargetExecutor() throws Throwable {
+        final Executor io = givenAnExecutor("io");
+        final Executor cpu = givenAnExecutor("cpu");
+
+        final Promise<String> promise = io.async(() -> 1)
+                .flatmapAsync(__ -> PromiseHelper.success(Thread.currentThread().getName()), cpu);
+
+        assertThat(promise.await(Duration.ofSeconds(5))).isEqualTo("cpu");
+    }
+
+    @Test
+    public void shouldCallbackOnTheTargetExecutor() {
+        final Executor io = givenAnExecutor("io");
+        final Executor cpu = givenAnExecutor("cpu");
+        final AtomicReference<String> thread = new AtomicReference<>();
+
+        io.async(() -> 1).onCompleteAsync(__ -> thread.set(Thread.currentThread().getName()), cpu);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> "cpu".equals(thread.get()));
+    }
+
+    @Test
+    public void shouldNotResubmitConsecutiveStagesOnTheSameExecutor() throws Throwable {
+        final AtomicInteger submissions = new AtomicInteger(0);
+        final Executor cpu = ExecutorHelper.create(new ThreadPoolExecutor(
+                1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                submissions.incrementAndGet();
+                super.execute(command);
+            }
+        });
+
+        final SolvablePromise<Integer> upstream = new SolvablePromise<>();
+        final Promise<Integer> promise = upstream
+                .mapAsync(i -> i + 1, cpu)
+                .mapAsync(i -> i * 2, cpu)
+                .flatmapAsync(i -> PromiseHelper.success(i + 1), cpu);
+
+        upstream.solve(Try.success(1));
+
+        assertThat(promise.await(Duration.ofSeconds(5))).isEqualTo(5);
+        assertThat(submissions.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotResubmitConsecutiveStagesOnAVirtualThread() throws Throwable {
+        final AtomicInteger submissions = new AtomicInteger(0);
+        final ThreadFactory virtualThreads = Thread.ofVirtual().factory();
+        final Executor cpu = ExecutorHelper.create(Executors.newThreadPerTaskExecutor(task -> {
+            submissions.incrementAndGet();
+            return virtualThreads.newThread(task);
+        }));
+        final CountDownLatch submitted = new CountDownLatch(1);
+
+        final SolvablePromise<Integer> upstream = new SolvablePromise<>();
+        final Promise<Integer> promise = upstream
+                .mapAsync(i -> {
+                    submitted.await();
+                    return i + 1;
+                }, cpu)
+                .mapAsync(i -> i * 2, cpu)
+                .flatmapAsync(i -> PromiseHelper.success(i + 1), cpu);
+
+        upstream.solve(Try.success(1));
+        submitted.countDown();
+
+        assertThat(promise.await(Duration.ofSeconds(5))).isEqualTo(5);
+        assertThat(submissions.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldPropagateFailuresWithoutSubmission() {
+        final AtomicInteger calls = new AtomicInteger(0);
+        final Executor cpu = givenAnExecutor("cpu");
+
+        final Promise<Integer> promise = PromiseHelper.<Integer>failure(new IOException())
+                .mapAsync(calls::addAndGet, cpu);
+
+        Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                .isInstanceOf(IOException.class);
+        assertThat(calls.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldFailWhenTheStageFails() {
+        final Executor cpu = givenAnExecutor("cpu");
+
+        final Promise<Integer> promise = PromiseHelper.success(1).mapAsync(__ -> {
+            throw new IOException();
+        }, cpu);
+
+        Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void shouldFailWhenAStageRunInlineThrows() {
+        final Executor cpu = givenAnExecutor("cpu");
+        final SolvablePromise<Integer> upstream = new SolvablePromise<>();
+
+        final Promise<Integer> promise = upstream.flatmapAsync(__ -> {
+            throw new IllegalStateException();
+        }, cpu);
+
+        // Solved by a task of the same executor i.e. the stage is run inline
+        cpu.async(() -> upstream.solve(Try.success(1)));
+
+        Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void shouldCancelTheRunningStage() throws Throwable {
+        final Executor cpu = givenAnExecutor("cpu");
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        final Promise<Integer> promise = PromiseHelper.success(1).mapAsync(__ -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return 0;
+        }, cpu);
+
+        started.await();
+        promise.cancel();
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private static Executor givenAnExecutor(String name) {
+        final ThreadFactory factory = runnable -> new Thread(runnable, name);
+        return ExecutorHelper.create(Executors.newSingleThreadExecutor(factory));
+    }
+}
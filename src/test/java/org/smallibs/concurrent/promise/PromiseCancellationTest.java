@@ -0,0 +1,167 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.execution.ExecutorHelper;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.data.Try;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PromiseCancellationTest {
+
+    @Test
+    public void shouldCancelUpstreamWhenLastDependentIsCancelled() throws Exception {
+        final Executor executor = givenAnExecutor();
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean(false);
+
+        final Promise<Integer> upstream = executor.async(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            }
+            return 1;
+        });
+
+        final Promise<Integer> derived = upstream.map(i -> i + 1).flatmap(i -> executor.async(() -> i + 1));
+
+        started.await(5, TimeUnit.SECONDS);
+
+        assertThat(derived.cancel()).isTrue();
+        assertThat(upstream.getFuture().isCancelled()).isTrue();
+
+        await().atMost(5, TimeUnit.SECONDS).until(interrupted::get);
+    }
+
+    @Test
+    public void shouldNotCancelUpstreamWhenDependentsRemain() {
+        final SolvablePromise<Integer> upstream = new SolvablePromise<>();
+
+        final Promise<Integer> first = upstream.map(i -> i + 1);
+        final Promise<Integer> second = upstream.map(i -> i + 2);
+
+        first.cancel();
+
+        assertThat(upstream.getFuture().isCancelled()).isFalse();
+
+        second.cancel();
+
+        assertThat(upstream.getFuture().isCancelled()).isTrue();
+    }
+
+    @Test
+    public void shouldCancelDependents() {
+        final SolvablePromise<Integer> upstream = new SolvablePromise<>();
+
+        final Promise<Integer> mapped = upstream.map(i -> i + 1);
+        final Promise<Integer> fused = mapped.map(i -> i + 1);
+        final Promise<Integer> recovered = upstream.biMap(i -> i, t -> 0);
+        final Promise<Integer> flatMapped = upstream.flatmap(PromiseHelper::success);
+
+        upstream.cancel();
+
+        assertThat(mapped.getFuture().isCancelled()).isTrue();
+        assertThat(fused.getFuture().isCancelled()).isTrue();
+        assertThat(recovered.getFuture().isCancelled()).isTrue();
+        assertThat(flatMapped.getFuture().isCancelled()).isTrue();
+    }
+
+    @Test
+    public void shouldCancelFusedDependentsOfACancelledStage() {
+        final SolvablePromise<Integer> upstream = new SolvablePromise<>();
+
+        final Promise<Integer> mapped = upstream.map(i -> i + 1);
+        final Promise<Integer> fused = mapped.map(i -> i + 1);
+        final Promise<Integer> other = upstream.map(i -> i + 1);
+
+        mapped.cancel();
+        upstream.solve(Try.success(1));
+
+        assertThat(fused.getFuture().isCancelled()).isTrue();
+        assertThat(other.getFuture().isDone()).isTrue();
+        assertThat(other.getFuture().isCancelled()).isFalse();
+    }
+
+    @Test
+    public void shouldCancelInnerPromiseOfAFlatmap() throws Exception {
+        final SolvablePromise<Integer> upstream = new SolvablePromise<>();
+        final SolvablePromise<Integer> inner = new SolvablePromise<>();
+
+        final Promise<Integer> flatMapped = upstream.flatmap(i -> inner);
+
+        upstream.solve(Try.success(1));
+        flatMapped.getFuture().cancel(true);
+
+        assertThat(inner.getFuture().isCancelled()).isTrue();
+    }
+
+    @Test
+    public void shouldNotStartACancelledTask() throws Throwable {
+        final Executor executor = givenAnExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean started = new AtomicBoolean(false);
+
+        final Promise<Integer> blocking = executor.async(() -> {
+            release.await();
+            return 1;
+        });
+        final Promise<Integer> queued = executor.async(() -> {
+            started.set(true);
+            return 2;
+        });
+
+        queued.cancel();
+        release.countDown();
+
+        assertThat(blocking.await(Duration.ofSeconds(5))).isEqualTo(1);
+        assertThat(executor.async(() -> 3).await(Duration.ofSeconds(5))).isEqualTo(3);
+        assertThat(started.get()).isFalse();
+
+        Assertions.assertThatThrownBy(() -> queued.await(Duration.ofSeconds(5)))
+                .isInstanceOf(CancellationException.class);
+    }
+
+    @Test
+    public void shouldCancelALongChainWithoutStackOverflow() {
+        final SolvablePromise<Integer> upstream = new SolvablePromise<>();
+
+        Promise<Integer> promise = upstream;
+        for (int i = 0; i < 100_000; i++) {
+            promise = promise.flatmap(PromiseHelper::success).map(v -> v + 1);
+        }
+
+        assertThat(promise.cancel()).isTrue();
+        assertThat(upstream.getFuture().isCancelled()).isTrue();
+    }
+
+    @Test
+    public void shouldNotCancelASolvedPromise() {
+        assertThat(PromiseHelper.success(1).cancel()).isFalse();
+    }
+
+    private Executor givenAnExecutor() {
+        return ExecutorHelper.create(Executors.newSingleThreadExecutor());
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.execution.ExecutorHelper;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.data.Try;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PromiseLoopTest {
+
+    @Test
+    public void shouldIterate_10_000_000_TimesInConstantMemory() throws Throwable {
+        final AtomicLong heapAtMiddle = new AtomicLong();
+        final long heapAtStart = usedHeap();
+
+        final Promise<Integer> promise = PromiseHelper.iterate(0, i -> {
+            if (i == 5_000_000) {
+                heapAtMiddle.set(usedHeap());
+            }
+
+            final SolvablePromise<Integer> next = new SolvablePromise<>();
+            next.solve(Try.success(i + 1));
+            return next;
+        }, i -> i == 10_000_000);
+
+        assertThat(promise.await(Duration.ofSeconds(30))).isEqualTo(10_000_000);
+        assertThat(heapAtMiddle.get() - heapAtStart).isLessThan(32 * 1024 * 1024);
+    }
+
+    @Test
+    public void shouldIterateAsynchronously() throws Throwable {
+        final Executor executor = givenAnExecutor();
+
+        final Promise<Integer> promise = PromiseHelper.iterate(0, i -> executor.async(() -> i + 1), i -> i == 10_000);
+
+        assertThat(promise.await(Duration.ofSeconds(30))).isEqualTo(10_000);
+    }
+
+    @Test
+    public void shouldIterateWithSolvedPromises() throws Throwable {
+        final Promise<Integer> promise = PromiseHelper.iterate(0, i -> PromiseHelper.success(i + 1), i -> i == 10_000_000);
+
+        assertThat(promise.await(Duration.ofSeconds(30))).isEqualTo(10_000_000);
+    }
+
+    @Test
+    public void shouldNotIterateWhenDone() throws Throwable {
+        final Promise<Integer> promise = PromiseHelper.iterate(0, i -> PromiseHelper.failure(new SecurityException()), i -> true);
+
+        assertThat(promise.await(Duration.ofSeconds(5))).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldStopIteratingOnFailure() {
+        final Executor executor = givenAnExecutor();
+
+        final Promise<Integer> promise = PromiseHelper.iterate(0, i -> executor.async(() -> {
+            if (i == 10) {
+                throw new SecurityException();
+            }
+            return i + 1;
+        }), i -> false);
+
+        Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                .isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    public void shouldStopIteratingWhenStepFails() {
+        final Promise<Integer> promise = PromiseHelper.iterate(0, i -> {
+            throw new SecurityException();
+        }, i -> false);
+
+        Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                .isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    public void shouldRepeatUntilDone() throws Throwable {
+        final Executor executor = givenAnExecutor();
+        final AtomicInteger anInteger = new AtomicInteger(0);
+
+        final Promise<Integer> promise = PromiseHelper.repeatUntil(() -> executor.async(anInteger::incrementAndGet), i -> i == 1_000);
+
+        assertThat(promise.await(Duration.ofSeconds(5))).isEqualTo(1_000);
+        assertThat(anInteger.get()).isEqualTo(1_000);
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private static long usedHeap() {
+        System.gc();
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+
+    private Executor givenAnExecutor() {
+        return ExecutorHelper.create(Executors.newSingleThreadExecutor());
+    }
+
+}
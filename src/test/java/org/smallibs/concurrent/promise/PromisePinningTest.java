@@ -0,0 +1,58 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise;
+
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.data.Try;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Run by a dedicated surefire execution where virtual threads share a single carrier
+ * thread: a virtual thread blocked while pinning it prevents the others from running.
+ */
+public class PromisePinningTest {
+
+    @Test
+    public void shouldAwaitWithoutPinningTheCarrierThread() throws Exception {
+        assumeTrue("1".equals(System.getProperty("jdk.virtualThreadScheduler.maxPoolSize")));
+
+        // Given
+        final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        final SolvablePromise<Integer> promise = new SolvablePromise<>();
+
+        try {
+            // When
+            final List<Future<Integer>> awaiting = IntStream.range(0, 100_000)
+                    .mapToObj(__ -> executor.submit(() -> promise.getFuture().get()))
+                    .toList();
+
+            // Only run once the carrier thread has been released by the awaiting threads
+            executor.submit(() -> promise.solve(Try.success(1)));
+
+            // Then
+            for (Future<Integer> future : awaiting) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            }
+        } finally {
+            // Releases the awaiting threads when the carrier thread is pinned
+            promise.solve(Try.success(1));
+            executor.shutdown();
+        }
+    }
+}
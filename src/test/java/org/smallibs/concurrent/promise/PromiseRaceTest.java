@@ -0,0 +1,117 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.execution.ExecutorHelper;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.data.Try;
+import org.smallibs.exception.NoValueException;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PromiseRaceTest {
+
+    @Test
+    public void shouldReturnTheFirstResponse() throws Throwable {
+        final SolvablePromise<Integer> first = new SolvablePromise<>();
+        final SolvablePromise<Integer> second = new SolvablePromise<>();
+
+        final Promise<Integer> race = PromiseHelper.race(first, second);
+
+        second.solve(Try.success(2));
+
+        assertThat(race.await(Duration.ofSeconds(5))).isEqualTo(2);
+        assertThat(first.getFuture().isCancelled()).isTrue();
+    }
+
+    @Test
+    public void shouldReturnTheFirstFailure() {
+        final SolvablePromise<Integer> first = new SolvablePromise<>();
+        final SolvablePromise<Integer> second = new SolvablePromise<>();
+
+        final Promise<Integer> race = PromiseHelper.race(first, second);
+
+        first.solve(Try.failure(new SecurityException()));
+        second.solve(Try.success(2));
+
+        Assertions.assertThatThrownBy(() -> race.await(Duration.ofSeconds(5)))
+                .isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    public void shouldReturnTheFirstSuccess() throws Throwable {
+        final SolvablePromise<Integer> first = new SolvablePromise<>();
+        final SolvablePromise<Integer> second = new SolvablePromise<>();
+        final SolvablePromise<Integer> third = new SolvablePromise<>();
+
+        final Promise<Integer> race = PromiseHelper.firstSuccess(first, second, third);
+
+        first.solve(Try.failure(new SecurityException()));
+        second.solve(Try.success(2));
+
+        assertThat(race.await(Duration.ofSeconds(5))).isEqualTo(2);
+        assertThat(third.getFuture().isCancelled()).isTrue();
+    }
+
+    @Test
+    public void shouldAggregateFailures() {
+        final Promise<Integer> race = PromiseHelper.firstSuccess(
+                PromiseHelper.failure(new SecurityException()),
+                PromiseHelper.failure(new IllegalStateException())
+        );
+
+        Assertions.assertThatThrownBy(() -> race.await(Duration.ofSeconds(5)))
+                .isInstanceOf(NoValueException.class)
+                .satisfies(e -> assertThat(e.getSuppressed()).hasSize(2));
+    }
+
+    @Test
+    public void shouldFailWhenEmpty() {
+        Assertions.assertThatThrownBy(() -> PromiseHelper.<Integer>race().await(Duration.ofSeconds(5)))
+                .isInstanceOf(NoValueException.class);
+        Assertions.assertThatThrownBy(() -> PromiseHelper.<Integer>firstSuccess().await(Duration.ofSeconds(5)))
+                .isInstanceOf(NoValueException.class);
+    }
+
+    @Test
+    public void shouldNotCancelASharedLoser() throws Throwable {
+        final SolvablePromise<Integer> winner = new SolvablePromise<>();
+        final SolvablePromise<Integer> loser = new SolvablePromise<>();
+        final Promise<Integer> mapped = loser.map(i -> i + 1);
+
+        final Promise<Integer> race = PromiseHelper.race(winner, loser);
+
+        winner.solve(Try.success(1));
+
+        assertThat(race.await(Duration.ofSeconds(5))).isEqualTo(1);
+        assertThat(loser.getFuture().isCancelled()).isFalse();
+        assertThat(mapped.getFuture().isCancelled()).isFalse();
+    }
+
+    @Test
+    public void shouldRaceReplicas() throws Throwable {
+        final Executor executor = ExecutorHelper.create(Executors.newFixedThreadPool(2));
+
+        final Promise<String> race = PromiseHelper.firstSuccess(
+                executor.async(() -> {
+                    Thread.sleep(10_000);
+                    return "slow";
+                }),
+                executor.async(() -> "fast")
+        );
+
+        assertThat(race.await(Duration.ofSeconds(5))).isEqualTo("fast");
+    }
+}
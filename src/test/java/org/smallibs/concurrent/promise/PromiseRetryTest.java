@@ -0,0 +1,189 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.execution.ExecutorHelper;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PromiseRetryTest {
+
+    private static final RetryPolicy POLICY = RetryPolicy.exponential(5, Duration.ofMillis(10), Duration.ofMillis(100));
+
+    @Test
+    public void shouldRetryUntilSuccess() throws Throwable {
+        final Executor executor = givenAnExecutor();
+        final AtomicInteger attempts = new AtomicInteger(0);
+
+        final Promise<Integer> promise = executor.retry(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IOException();
+            }
+            return 42;
+        }, POLICY);
+
+        assertThat(promise.await(Duration.ofSeconds(5))).isEqualTo(42);
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldFailWithTheLastFailureAfterMaxAttempts() {
+        final Executor executor = givenAnExecutor();
+        final AtomicInteger attempts = new AtomicInteger(0);
+
+        final Promise<Integer> promise = executor.retry(() -> {
+            throw new IOException("attempt " + attempts.incrementAndGet());
+        }, POLICY);
+
+        Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                .isInstanceOf(IOException.class)
+                .hasMessage("attempt 5");
+        assertThat(attempts.get()).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldNotRetryRejectedFailures() {
+        final Executor executor = givenAnExecutor();
+        final AtomicInteger attempts = new AtomicInteger(0);
+
+        final Promise<Integer> promise = executor.retry(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException();
+        }, POLICY.retryOnFailure(IOException.class::isInstance));
+
+        Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotHoldAThreadBetweenAttempts() throws Throwable {
+        final Executor executor = givenAnExecutor();
+        final AtomicInteger attempts = new AtomicInteger(0);
+        final RetryPolicy policy = RetryPolicy.exponential(3, Duration.ofMillis(500), Duration.ofMillis(500));
+
+        final Promise<Integer> retried = executor.retry(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IOException();
+            }
+            return 1;
+        }, policy);
+
+        // The single thread remains available during the backoff
+        await().atMost(5, TimeUnit.SECONDS).until(() -> attempts.get() == 1);
+        assertThat(executor.async(() -> 2).await(Duration.ofMillis(250))).isEqualTo(2);
+
+        assertThat(retried.await(Duration.ofSeconds(5))).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCancelTheCurrentAttempt() {
+        final AtomicReference<SolvablePromise<Integer>> current = new AtomicReference<>();
+
+        final Promise<Integer> promise = PromiseHelper.retry(() -> {
+            current.set(new SolvablePromise<>());
+            return current.get();
+        }, POLICY);
+
+        promise.cancel();
+
+        assertThat(current.get().getFuture().isCancelled()).isTrue();
+    }
+
+    @Test
+    public void shouldStopRetryingWhenCancelledDuringTheBackoff() {
+        final AtomicInteger attempts = new AtomicInteger(0);
+        final RetryPolicy policy = RetryPolicy.exponential(5, Duration.ofMillis(200), Duration.ofMillis(200));
+
+        final Promise<Integer> promise = PromiseHelper.retry(() -> {
+            attempts.incrementAndGet();
+            return PromiseHelper.failure(new IOException());
+        }, policy);
+
+        promise.cancel();
+
+        await().pollDelay(500, TimeUnit.MILLISECONDS).atMost(5, TimeUnit.SECONDS).until(() -> attempts.get() == 1);
+    }
+
+    @Test
+    public void shouldBoundTheBackoff() {
+        final RetryPolicy policy = RetryPolicy.exponential(10, Duration.ofMillis(10), Duration.ofMillis(100));
+
+        assertThat(policy.withJitter(0).delay(1)).isEqualTo(Duration.ofMillis(10));
+        assertThat(policy.withJitter(0).delay(3)).isEqualTo(Duration.ofMillis(40));
+        assertThat(policy.withJitter(0).delay(9)).isEqualTo(Duration.ofMillis(100));
+        assertThat(policy.delay(9)).isBetween(Duration.ofMillis(50), Duration.ofMillis(100));
+    }
+
+    @Test
+    public void shouldRetryManyTimesWithAConstantStack() throws Throwable {
+        final AtomicInteger attempts = new AtomicInteger(0);
+        final RetryPolicy policy = RetryPolicy.exponential(100, Duration.ZERO, Duration.ZERO);
+
+        final Promise<Integer> promise = PromiseHelper.retry(() -> {
+            if (attempts.incrementAndGet() < 100) {
+                return PromiseHelper.failure(new IOException());
+            }
+            return PromiseHelper.success(attempts.get());
+        }, policy);
+
+        assertThat(promise.await(Duration.ofSeconds(30))).isEqualTo(100);
+    }
+
+    @Test
+    public void shouldRetryOffTheTimerThread() throws Throwable {
+        final AtomicReference<String> thread = new AtomicReference<>();
+        final AtomicInteger attempts = new AtomicInteger(0);
+
+        final Promise<Integer> promise = PromiseHelper.retry(() -> {
+            if (attempts.incrementAndGet() < 2) {
+                return PromiseHelper.failure(new IOException());
+            }
+            thread.set(Thread.currentThread().getName());
+            return PromiseHelper.success(attempts.get());
+        }, POLICY);
+
+        assertThat(promise.await(Duration.ofSeconds(5))).isEqualTo(2);
+        assertThat(thread.get()).isNotEqualTo("hpas-timer");
+    }
+
+    @Test
+    public void shouldSelectRetriedResponses() {
+        final AtomicInteger attempts = new AtomicInteger(0);
+
+        final Promise<Integer> promise = PromiseHelper.retry(() -> {
+            attempts.incrementAndGet();
+            return PromiseHelper.failure(new IOException("fatal"));
+        }, POLICY.retryOn(response -> response.fold(v -> false, t -> !"fatal".equals(t.getMessage()))));
+
+        Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                .isInstanceOf(IOException.class);
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    //
+    // Private behaviors
+    //
+
+    private static Executor givenAnExecutor() {
+        return ExecutorHelper.create(Executors.newSingleThreadExecutor());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.data.Try;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PromiseTimeoutTest {
+
+    @Test
+    public void shouldFailOnTimeout() {
+        final SolvablePromise<Integer> promise = new SolvablePromise<>();
+
+        final Promise<Integer> timed = promise.orTimeout(Duration.ofMillis(50));
+
+        Assertions.assertThatThrownBy(() -> timed.await(Duration.ofSeconds(5)))
+                .isInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    public void shouldNotRunContinuationsOnTheTimerThread() throws Throwable {
+        final SolvablePromise<Integer> promise = new SolvablePromise<>();
+
+        final Promise<String> thread = promise.completeOnTimeout(0, Duration.ofMillis(50))
+                .map(i -> Thread.currentThread().getName());
+
+        assertThat(thread.await(Duration.ofSeconds(5))).isNotEqualTo("hpas-timer");
+    }
+
+    @Test
+    public void shouldCancelTheUpstreamOnTimeout() throws Throwable {
+        final SolvablePromise<Integer> promise = new SolvablePromise<>();
+
+        final Promise<Integer> timed = promise.completeOnTimeout(0, Duration.ofMillis(50));
+
+        assertThat(timed.await(Duration.ofSeconds(5))).isEqualTo(0);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> promise.getFuture().isCancelled());
+    }
+
+    @Test
+    public void shouldNotCancelASharedUpstreamOnTimeout() throws Throwable {
+        final SolvablePromise<Integer> promise = new SolvablePromise<>();
+
+        final Promise<Integer> mapped = promise.map(i -> i + 1);
+        final Promise<Integer> timed = promise.completeOnTimeout(0, Duration.ofMillis(50));
+
+        assertThat(timed.await(Duration.ofSeconds(5))).isEqualTo(0);
+        assertThat(promise.getFuture().isCancelled()).isFalse();
+
+        promise.solve(Try.success(1));
+
+        assertThat(mapped.await(Duration.ofSeconds(5))).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCompleteBeforeTimeout() throws Throwable {
+        final SolvablePromise<Integer> promise = new SolvablePromise<>();
+
+        final Promise<Integer> timed = promise.orTimeout(Duration.ofSeconds(1));
+        promise.solve(Try.success(1));
+
+        assertThat(timed.await(Duration.ofSeconds(5))).isEqualTo(1);
+        Thread.sleep(1_100);
+        assertThat(timed.await(Duration.ofSeconds(5))).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReturnASolvedPromise() {
+        final Promise<Integer> promise = PromiseHelper.success(1);
+
+        assertThat(promise.orTimeout(Duration.ZERO)).isSameAs(promise);
+        assertThat(promise.completeOnTimeout(0, Duration.ZERO)).isSameAs(promise);
+    }
+
+    @Test
+    public void shouldHandle_100_000_PendingTimeouts() throws Throwable {
+        final List<SolvablePromise<Integer>> promises = new ArrayList<>();
+        final List<Promise<Integer>> timed = new ArrayList<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            final SolvablePromise<Integer> promise = new SolvablePromise<>();
+            promises.add(promise);
+            timed.add(promise.completeOnTimeout(-1, Duration.ofSeconds(2)));
+        }
+
+        for (int i = 0; i < 100_000; i += 2) {
+            promises.get(i).solve(Try.success(i));
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(timed.get(i).await(Duration.ofSeconds(10))).isEqualTo(i % 2 == 0 ? i : -1);
+        }
+    }
+}
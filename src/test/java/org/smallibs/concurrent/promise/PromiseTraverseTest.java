@@ -0,0 +1,103 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.promise;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.smallibs.concurrent.execution.Executor;
+import org.smallibs.concurrent.execution.ExecutorHelper;
+import org.smallibs.concurrent.promise.impl.SolvablePromise;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PromiseTraverseTest {
+
+    @Test
+    public void shouldTraverseInOrder() throws Throwable {
+        final Executor executor = ExecutorHelper.create(Executors.newFixedThreadPool(4));
+
+        final Promise<List<Integer>> promise = PromiseHelper.traverse(List.of(3, 2, 1, 0), i -> executor.async(() -> {
+            Thread.sleep(i * 50);
+            return i;
+        }), 4);
+
+        assertThat(promise.await(Duration.ofSeconds(5))).containsExactly(3, 2, 1, 0);
+    }
+
+    @Test
+    public void shouldTraverseInCompletionOrder() throws Throwable {
+        final Executor executor = ExecutorHelper.create(Executors.newFixedThreadPool(4));
+
+        final Promise<List<Integer>> promise = PromiseHelper.traverseUnordered(List.of(3, 2, 1, 0), i -> executor.async(() -> {
+            Thread.sleep(i * 100);
+            return i;
+        }), 4);
+
+        assertThat(promise.await(Duration.ofSeconds(5))).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    public void shouldBoundThePromisesInFlight() throws Throwable {
+        final Executor executor = ExecutorHelper.create(Executors.newFixedThreadPool(8));
+        final AtomicInteger inFlight = new AtomicInteger(0);
+        final AtomicInteger maxInFlight = new AtomicInteger(0);
+
+        final Promise<List<Integer>> promise = PromiseHelper.traverse(() -> IntStream.range(0, 1_000).iterator(), i -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return executor.async(() -> {
+                inFlight.decrementAndGet();
+                return i;
+            });
+        }, 3);
+
+        assertThat(promise.await(Duration.ofSeconds(10))).hasSize(1_000);
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void shouldTraverse_1_000_000_ElementsLazily() throws Throwable {
+        final Promise<List<Integer>> promise = PromiseHelper.traverse(
+                () -> IntStream.range(0, 1_000_000).iterator(),
+                PromiseHelper::success,
+                16
+        );
+
+        final List<Integer> integers = promise.await(Duration.ofSeconds(30));
+
+        assertThat(integers).hasSize(1_000_000);
+        assertThat(integers.get(999_999)).isEqualTo(999_999);
+    }
+
+    @Test
+    public void shouldFailFastAndReleaseThePromisesInFlight() {
+        final SolvablePromise<Integer> pending = new SolvablePromise<>();
+        final AtomicInteger pulled = new AtomicInteger(0);
+
+        final Promise<List<Integer>> promise = PromiseHelper.traverse(() -> IntStream.range(0, 1_000).iterator(), i -> {
+            pulled.incrementAndGet();
+            return i == 0 ? pending : PromiseHelper.failure(new SecurityException());
+        }, 2);
+
+        Assertions.assertThatThrownBy(() -> promise.await(Duration.ofSeconds(5)))
+                .isInstanceOf(SecurityException.class);
+        assertThat(pending.getFuture().isCancelled()).isTrue();
+        assertThat(pulled.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldTraverseEmptyInputs() throws Throwable {
+        assertThat(PromiseHelper.traverse(List.<Integer>of(), PromiseHelper::success, 1).await(Duration.ofSeconds(5))).isEmpty();
+    }
+}
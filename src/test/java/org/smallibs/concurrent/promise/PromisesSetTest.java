@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.smallibs.concurrent.execution.Executor;
 import org.smallibs.concurrent.execution.ExecutorHelper;
 import org.smallibs.concurrent.promise.impl.SolvablePromise;
+import org.smallibs.data.Try;
 import org.smallibs.data.Unit;
 
 import java.util.Arrays;
@@ -27,6 +28,7 @@ import java.util.stream.IntStream;
 
 import static com.jayway.awaitility.Awaitility.await;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.smallibs.concurrent.promise.PromiseHelper.failure;
 import static org.smallibs.concurrent.promise.PromiseHelper.success;
 
@@ -255,6 +257,82 @@ public class PromisesSetTest {
         assertThat(integers).containsExactly(1);
     }
 
+    @Test
+    public void shouldCollectInInputOrder() throws Throwable {
+        final List<SolvablePromise<Integer>> promises = IntStream.range(0, 3)
+                .mapToObj(i -> new SolvablePromise<Integer>())
+                .collect(Collectors.toList());
+
+        final Promise<List<Integer>> all = PromiseHelper.all(List.copyOf(promises));
+
+        promises.get(2).solve(Try.success(2));
+        promises.get(0).solve(Try.success(0));
+        promises.get(1).solve(Try.success(1));
+
+        assertThat(all.await(java.time.Duration.ofSeconds(5))).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void shouldCollectWhenEmpty() throws Throwable {
+        assertThat(PromiseHelper.<Integer>all(List.of()).await(java.time.Duration.ofSeconds(5))).isEmpty();
+    }
+
+    @Test
+    public void shouldFailFast() {
+        final SolvablePromise<Integer> pending = new SolvablePromise<>();
+        final List<Promise<Integer>> promises = List.of(success(1), pending, failure(new SecurityException()));
+
+        final Promise<List<Integer>> all = PromiseHelper.all(promises);
+
+        assertThatThrownBy(() -> all.await(java.time.Duration.ofSeconds(5))).isInstanceOf(SecurityException.class);
+        assertThat(pending.getFuture().isCancelled()).isTrue();
+    }
+
+    @Test
+    public void shouldCollect_1_000_000_Promises() throws Throwable {
+        final List<SolvablePromise<Integer>> promises = IntStream.range(0, 1_000_000)
+                .mapToObj(i -> new SolvablePromise<Integer>())
+                .collect(Collectors.toList());
+
+        final Promise<List<Integer>> all = PromiseHelper.all(List.copyOf(promises));
+
+        IntStream.range(0, 1_000_000).parallel().forEach(i -> promises.get(i).solve(Try.success(i)));
+
+        final List<Integer> integers = all.await(java.time.Duration.ofSeconds(30));
+
+        assertThat(integers).hasSize(1_000_000);
+        for (int i = 0; i < 1_000_000; i++) {
+            assertThat(integers.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void shouldJoin_1_000_000_Promises() throws Throwable {
+        final SolvablePromise<Integer>[] promises = IntStream.range(0, 1_000_000)
+                .mapToObj(i -> new SolvablePromise<Integer>())
+                .toArray(SolvablePromise[]::new);
+
+        final Promise<Unit> join = PromiseHelper.join(promises);
+
+        IntStream.range(0, 1_000_000).parallel().forEach(i -> promises[i].solve(Try.success(i)));
+
+        assertThat(join.await(java.time.Duration.ofSeconds(30))).isEqualTo(Unit.unit);
+    }
+
+    @Test
+    public void shouldStopEarlyAndRelease_1_000_000_Promises() {
+        final SolvablePromise<Integer>[] promises = IntStream.range(0, 1_000_000)
+                .mapToObj(i -> new SolvablePromise<Integer>())
+                .toArray(SolvablePromise[]::new);
+
+        final Promise<Unit> forall = PromiseHelper.forall(promises);
+
+        promises[0].solve(Try.failure(new SecurityException()));
+
+        assertThatThrownBy(() -> forall.await(java.time.Duration.ofSeconds(5))).isInstanceOf(SecurityException.class);
+        await().atMost(Duration.TEN_SECONDS).until(() -> Arrays.stream(promises).allMatch(p -> p.getFuture().isDone()));
+    }
+
     private Executor givenAnExecutor() {
         return ExecutorHelper.create(Executors.newSingleThreadExecutor());
     }
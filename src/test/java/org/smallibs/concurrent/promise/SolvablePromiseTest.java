@@ -18,7 +18,10 @@ import org.smallibs.exception.FilterException;
 import org.smallibs.type.HK;
 
 import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -332,6 +335,141 @@ public class SolvablePromiseTest {
                 .isInstanceOf(FilterException.class);
     }
 
+    @Test
+    public void shouldApplyEachCallbackOnceWhenRegisteringConcurrently() throws Exception {
+        final AtomicInteger anInteger = new AtomicInteger(0);
+        final SolvablePromise<Integer> integerPromise = new SolvablePromise<>();
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        for (int i = 0; i < 8; i++) {
+            executorService.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ignored) {
+                }
+                for (int j = 0; j < 10_000; j++) {
+                    integerPromise.onComplete(r -> anInteger.incrementAndGet());
+                }
+            });
+        }
+
+        start.countDown();
+        integerPromise.solve(Try.success(1));
+        executorService.shutdown();
+        executorService.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertThat(anInteger.get()).isEqualTo(80_000);
+        assertThat(integerPromise.solve(Try.success(2))).isFalse();
+    }
+
+    @Test
+    public void shouldApplyOnFailureWhenCancelled() {
+        final AtomicReference<Throwable> reference = new AtomicReference<>();
+        final SolvablePromise<Integer> integerPromise = new SolvablePromise<>();
+
+        integerPromise.onFailure(reference::set);
+        integerPromise.getFuture().cancel(true);
+
+        assertThat(reference.get()).isInstanceOf(CancellationException.class);
+        assertThat(integerPromise.getFuture().isCancelled()).isTrue();
+        assertThat(integerPromise.solve(Try.success(1))).isFalse();
+    }
+
+    @Test
+    public void shouldNotStallRegistrationsWhenACallbackBlocks() throws Throwable {
+        final Executor executor = givenAnExecutor();
+        final CountDownLatch blocking = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean aBoolean = new AtomicBoolean(false);
+
+        final SolvablePromise<Integer> integerPromise = new SolvablePromise<>();
+
+        integerPromise.onSuccess(i -> {
+            blocking.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+
+        executor.async(() -> integerPromise.solve(Try.success(1)));
+
+        assertThat(blocking.await(5, TimeUnit.SECONDS)).isTrue();
+
+        integerPromise.onSuccess(i -> aBoolean.set(true));
+
+        assertThat(aBoolean.get()).isTrue();
+        assertThat(integerPromise.await(Duration.ofSeconds(1))).isEqualTo(1);
+        assertThat(integerPromise.getFuture().cancel(true)).isFalse();
+
+        release.countDown();
+    }
+
+    @Test
+    public void shouldApplyAllCallbacksWhenOneFails() {
+        final AtomicBoolean aBoolean = new AtomicBoolean(false);
+        final SolvablePromise<Integer> integerPromise = new SolvablePromise<>();
+
+        integerPromise.onSuccess(i -> {
+            throw new SecurityException();
+        });
+        integerPromise.onSuccess(i -> aBoolean.set(true));
+
+        Assertions.assertThatThrownBy(() -> integerPromise.solve(Try.success(1)))
+                .isInstanceOf(SecurityException.class);
+
+        assertThat(aBoolean.get()).isTrue();
+    }
+
+    @Test
+    public void shouldAwaitAPromiseSolvedWithinACallback() throws Throwable {
+        final SolvablePromise<Integer> trigger = new SolvablePromise<>();
+        final AtomicReference<Integer> result = new AtomicReference<>();
+
+        trigger.onSuccess(i -> {
+            final SolvablePromise<Integer> inner = new SolvablePromise<>();
+            final Promise<Integer> mapped = inner.map(x -> x + 1);
+            inner.solve(Try.success(i));
+            result.set(await(mapped, Duration.ofSeconds(2)).fold(v -> v, t -> -1));
+        });
+
+        trigger.solve(Try.success(41));
+
+        assertThat(result.get()).isEqualTo(42);
+    }
+
+    @Test
+    public void shouldReleaseWaitersBeforeTheEndOfTheCallback() throws Throwable {
+        final SolvablePromise<Integer> first = new SolvablePromise<>();
+        final SolvablePromise<Integer> second = new SolvablePromise<>();
+        final CountDownLatch released = new CountDownLatch(1);
+        final CountDownLatch awaiting = new CountDownLatch(1);
+        final AtomicBoolean releasedDuringCallback = new AtomicBoolean(false);
+
+        first.onSuccess(i -> {
+            second.solve(Try.success(i));
+            try {
+                releasedDuringCallback.set(released.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException ignored) {
+            }
+        });
+
+        final Thread waiter = Thread.ofVirtual().start(() -> {
+            awaiting.countDown();
+            if (await(second, Duration.ofSeconds(5)).isSuccess()) {
+                released.countDown();
+            }
+        });
+
+        awaiting.await(5, TimeUnit.SECONDS);
+        Thread.sleep(50);
+        first.solve(Try.success(1));
+        waiter.join();
+
+        assertThat(releasedDuringCallback.get()).isTrue();
+    }
+
     private Executor givenAnExecutor() {
         return ExecutorHelper.create(Executors.newSingleThreadExecutor());
     }
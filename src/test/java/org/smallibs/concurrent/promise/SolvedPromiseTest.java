@@ -10,12 +10,14 @@ package org.smallibs.concurrent.promise;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.smallibs.data.Unit;
 import org.smallibs.exception.FilterException;
 import org.smallibs.type.HK;
 
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -154,4 +156,55 @@ public class SolvedPromiseTest {
                 .isInstanceOf(FilterException.class);
     }
 
+    @Test
+    public void shouldFailWhenAFunctionThrows() {
+        final Function<Integer, Promise<Integer>> failing = __ -> {
+            throw new IllegalStateException();
+        };
+        final Promise<Integer> flatmapped = PromiseHelper.success(1).flatmap(failing);
+        final Promise<Integer> filtered = PromiseHelper.success(1).filter(__ -> {
+            throw new IllegalArgumentException();
+        }).self();
+
+        Assertions.assertThatThrownBy(() -> flatmapped.getFuture().get(5, TimeUnit.SECONDS))
+                .rootCause()
+                .isInstanceOf(IllegalStateException.class);
+        Assertions.assertThatThrownBy(() -> filtered.getFuture().get(5, TimeUnit.SECONDS))
+                .rootCause()
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldApplyMapEagerly() {
+        final Promise<Integer> integerPromise = PromiseHelper.success(1).and(i -> i + 1).filter(i -> i == 2).self();
+
+        assertThat(integerPromise.getFuture().isDone()).isTrue();
+        assertThat(integerPromise.getFuture()).isSameAs(integerPromise);
+    }
+
+    @Test
+    public void shouldApplyBiMapEagerlyOnFailure() throws Exception {
+        final Promise<Integer> integerPromise = PromiseHelper.<Integer>failure(new SecurityException())
+                .biMap(i -> i + 1, t -> 0);
+
+        assertThat(integerPromise.getFuture().isDone()).isTrue();
+        assertThat(integerPromise.getFuture().get()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldShareCanonicalInstances() {
+        assertThat(PromiseHelper.success(Unit.unit)).isSameAs(PromiseHelper.success(Unit.unit));
+        assertThat(PromiseHelper.success(true)).isSameAs(PromiseHelper.success(true));
+        assertThat(PromiseHelper.success(false)).isSameAs(PromiseHelper.success(false));
+        assertThat(PromiseHelper.<Integer>success(null)).isSameAs(PromiseHelper.<String>success(null));
+    }
+
+    @Test
+    public void shouldAwaitSolvedPromise() throws Throwable {
+        assertThat(PromiseHelper.success(1).await()).isEqualTo(1);
+
+        Assertions.assertThatThrownBy(() -> PromiseHelper.failure(new SecurityException()).await())
+                .isInstanceOf(SecurityException.class);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+/*
+ * HPAS
+ * https://github.com/d-plaindoux/hpas
+ *
+ * Copyright (c) 2016-2025 Didier Plaindoux
+ * Licensed under the LGPL2 license.
+ */
+
+package org.smallibs.concurrent.timer;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimerTest {
+
+    @Test
+    public void shouldExecuteATaskAfterADelay() throws InterruptedException {
+        final Timer timer = TimerHelper.shared();
+        final CountDownLatch executed = new CountDownLatch(1);
+
+        final long start = System.nanoTime();
+        timer.schedule(executed::countDown, Duration.ofMillis(100));
+
+        assertThat(executed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(Duration.ofMillis(100).toNanos());
+    }
+
+    @Test
+    public void shouldNotExecuteACancelledTask() throws InterruptedException {
+        final Timer timer = TimerHelper.shared();
+        final AtomicBoolean executed = new AtomicBoolean(false);
+        final CountDownLatch next = new CountDownLatch(1);
+
+        final Timer.Timeout timeout = timer.schedule(() -> executed.set(true), Duration.ofMillis(50));
+
+        assertThat(timeout.cancel()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+
+        timer.schedule(next::countDown, Duration.ofMillis(100));
+
+        assertThat(next.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed.get()).isFalse();
+    }
+
+    @Test
+    public void shouldExecuteTasksBeyondAWheelRevolution() throws InterruptedException {
+        final Timer timer = TimerHelper.create(Duration.ofMillis(1), 8);
+        final CountDownLatch executed = new CountDownLatch(1);
+
+        final long start = System.nanoTime();
+        timer.schedule(executed::countDown, Duration.ofMillis(50));
+
+        assertThat(executed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(Duration.ofMillis(50).toNanos());
+    }
+
+    @Test
+    public void shouldExecute_100_000_Tasks() {
+        final Timer timer = TimerHelper.shared();
+        final AtomicInteger executed = new AtomicInteger(0);
+
+        for (int i = 0; i < 100_000; i++) {
+            timer.schedule(executed::incrementAndGet, Duration.ofMillis(i % 200));
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executed.get() == 100_000);
+    }
+
+    @Test
+    public void shouldSurviveAFailingTask() throws InterruptedException {
+        final Timer timer = TimerHelper.shared();
+        final CountDownLatch executed = new CountDownLatch(1);
+
+        timer.schedule(() -> {
+            throw new SecurityException();
+        }, Duration.ZERO);
+        timer.schedule(executed::countDown, Duration.ofMillis(20));
+
+        assertThat(executed.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}